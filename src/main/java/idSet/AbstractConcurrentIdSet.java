@@ -0,0 +1,167 @@
+package idSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// common part of the thread safe sets, elements are kept in bucket chains of an array which writers replace as a whole
+// when resizing, readers never lock, they read the array once and traverse it, so they see either the previous array or
+// the complete new one, the subclass decides how writers are synchronized and whether chains are changed in place
+abstract class AbstractConcurrentIdSet<E extends Identifiable> extends AbstractIdSet<E> {
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    // package private access for test purposes
+    volatile AtomicReferenceArray<Node<E>> elements;
+
+    AbstractConcurrentIdSet(int initialCapacity, int minCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Parameter initialCapacity should be greater than 0.");
+        }
+        int requestedCapacity = Math.min(initialCapacity, MAX_CAPACITY);
+        int highestOneBit = Integer.highestOneBit(requestedCapacity);
+        int capacity = requestedCapacity == highestOneBit ? requestedCapacity : highestOneBit << 1;
+        elements = new AtomicReferenceArray<>(Math.max(capacity, minCapacity));
+    }
+
+    @Override
+    public E get(Object id) {
+        int hashCode = id.hashCode();
+        AtomicReferenceArray<Node<E>> elements = this.elements;
+        for (Node<E> node = elements.get(modHashCode(hashCode, elements)); node != null; node = node.next) {
+            if (node.hashCode == hashCode && node.e.getId().equals(id)) {
+                return node.e;
+            }
+        }
+        return null;
+    }
+
+    // a new array is filled before being published, so readers see either the previous or the complete new one
+    final AtomicReferenceArray<Node<E>> rebuildElements(AtomicReferenceArray<Node<E>> previousElements, int capacity) {
+        AtomicReferenceArray<Node<E>> elements = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < previousElements.length(); i++) {
+            for (Node<E> node = previousElements.get(i); node != null; node = node.next) {
+                int modHashCode = modHashCode(node.hashCode, elements);
+                elements.set(modHashCode, new Node<>(node.hashCode, node.e, elements.get(modHashCode)));
+            }
+        }
+        return elements;
+    }
+
+    // does not allocate, traverses the array which was current when the traversal started
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        AtomicReferenceArray<Node<E>> elements = this.elements;
+        for (int i = 0; i < elements.length(); i++) {
+            for (Node<E> node = elements.get(i); node != null; node = node.next) {
+                action.accept(node.e);
+            }
+        }
+    }
+
+    // weakly consistent, traverses the array which was current when the iterator was created
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final AtomicReferenceArray<Node<E>> elements = AbstractConcurrentIdSet.this.elements;
+            private int index;
+            private Node<E> next = advance(null);
+            private Node<E> lastReturned;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = next;
+                next = advance(next.next);
+                return lastReturned.e;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                removeId(lastReturned.e.getId());
+                lastReturned = null;
+            }
+
+            private Node<E> advance(Node<E> node) {
+                while (node == null && index < elements.length()) {
+                    node = elements.get(index++);
+                }
+                return node;
+            }
+        };
+    }
+
+    // the size may change while copying, so the elements are collected first
+    @Override
+    public Object[] toArray() {
+        return new ArrayList<>(this).toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        Objects.requireNonNull(a);
+        return new ArrayList<>(this).toArray(a);
+    }
+
+    static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    static int modHashCode(int hashCode, AtomicReferenceArray<?> elements) {
+        return spread(hashCode) & (elements.length() - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AbstractConcurrentIdSet<?> flexSet = (AbstractConcurrentIdSet<?>) o;
+        return size() == flexSet.size() &&
+                containsAll(flexSet);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCodesSum = 0;
+        AtomicReferenceArray<Node<E>> elements = this.elements;
+        for (int i = 0; i < elements.length(); i++) {
+            for (Node<E> node = elements.get(i); node != null; node = node.next) {
+                hashCodesSum += node.hashCode;
+            }
+        }
+        return hashCodesSum;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "{" +
+                "elements=" + new ArrayList<>(this) +
+                '}';
+    }
+
+    // package private access for test purposes, idSet.CopyOnWriteFlexSet never changes next of a published node
+    static final class Node<E extends Identifiable> {
+
+        final int hashCode;
+        final E e;
+        volatile Node<E> next;
+
+        Node(int hashCode, E e, Node<E> next) {
+            this.hashCode = hashCode;
+            this.e = e;
+            this.next = next;
+        }
+    }
+
+}
@@ -0,0 +1,321 @@
+package idSet;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+// common part of idSet.IdSet implementations, expressed in terms of size, get, add, removeId and iterator,
+// bulk operations traverse the set with forEach, so implementations overriding it speed them up as well
+abstract class AbstractIdSet<E extends Identifiable> implements IdSet<E> {
+
+    private Set<Object> idSet;
+    private Set<E> entrySet;
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return containsId(ensureTypeValid(o).getId());
+    }
+
+    @Override
+    public boolean containsId(Object o) {
+        return get(o) != null;
+    }
+
+    @Override
+    public int getAll(Object[] ids, E[] out) {
+        ensureGetAllArgumentsValid(ids, out);
+        int found = 0;
+        for (int i = 0; i < ids.length; i++) {
+            out[i] = get(ids[i]);
+            if (out[i] != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<E> getAll(Collection<?> ids) {
+        Objects.requireNonNull(ids);
+        Object[] idsArray = ids.toArray();
+        E[] out = (E[]) new Identifiable[idsArray.length];
+        getAll(idsArray, out);
+        return Arrays.asList(out);
+    }
+
+    void ensureGetAllArgumentsValid(Object[] ids, Object[] out) {
+        Objects.requireNonNull(ids);
+        Objects.requireNonNull(out);
+        if (out.length < ids.length) {
+            throw new IllegalArgumentException(String.format("Cannot fit %s elements into array of length %s.", ids.length, out.length));
+        }
+    }
+
+    @Override
+    public E getByElem(E e) {
+        Objects.requireNonNull(e);
+        return get(e.getId());
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] a = new Object[size()];
+        return copyToArray(a);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T[] toArray(T[] a) {
+        Objects.requireNonNull(a);
+        ensureCapacityOfGivenArray(a);
+        a = (T[]) Array.newInstance(a.getClass().getComponentType(), size());
+        return copyToArray(a);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, E> toHashMap() {
+        Map<K, E> map = new HashMap<>();
+        forEach(e -> map.put((K) e.getId(), e));
+        return map;
+    }
+
+    private <T> void ensureCapacityOfGivenArray(T[] a) {
+        if (a.length < size()) {
+            throw new IllegalArgumentException(String.format("Cannot fit %s elements into array of length %s.", getClass().getName(), a.length));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T[] copyToArray(T[] a) {
+        forEachIndexed((e, i) -> a[i] = (T) e);
+        return a;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Objects.requireNonNull(o);
+        return removeId(ensureTypeValid(o).getId()) != null;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (checkNecessaryConditionsForContainsAll(c)) {
+            return false;
+        }
+        for (Object o : c) {
+            if (!(o instanceof Identifiable) || !containsId(((Identifiable) o).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsAllIds(Collection<?> c) {
+        if (checkNecessaryConditionsForContainsAll(c)) {
+            return false;
+        }
+        for (Object o : c) {
+            if (!containsId(o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkNecessaryConditionsForContainsAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return c instanceof Set && size() < c.size();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        Objects.requireNonNull(c);
+        boolean result = false;
+        for (E e : c) {
+            if (add(e)) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        boolean result = false;
+        for (Object o : c) {
+            if (o instanceof Identifiable && removeId(((Identifiable) o).getId()) != null) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeAllIds(Collection<?> c) {
+        Objects.requireNonNull(c);
+        boolean result = false;
+        for (Object o : c) {
+            if (removeId(o) != null) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    // ids are collected first, so that no element is removed while iterating
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        List<Object> idsToRemove = new ArrayList<>();
+        forEach(e -> {
+            if (!c.contains(e)) {
+                idsToRemove.add(e.getId());
+            }
+        });
+        return removeAllIds(idsToRemove);
+    }
+
+    @Override
+    public boolean retainAllIds(Collection<?> c) {
+        Objects.requireNonNull(c);
+        List<Object> idsToRemove = new ArrayList<>();
+        forEachId(id -> {
+            if (!c.contains(id)) {
+                idsToRemove.add(id);
+            }
+        });
+        return removeAllIds(idsToRemove);
+    }
+
+    // live view, changes of the set are visible through it and removal through it removes from the set
+    @Override
+    public Set<Object> idSet() {
+        if (idSet == null) {
+            idSet = new IdSetView();
+        }
+        return idSet;
+    }
+
+    // live view, changes of the set are visible through it and removal through it removes from the set
+    @Override
+    public Set<E> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySetView();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public void forEachId(Consumer<Object> action) {
+        Objects.requireNonNull(action);
+        forEach(e -> action.accept(e.getId()));
+    }
+
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int i = 0;
+        for (E e : this) {
+            action.accept(e, i++);
+        }
+    }
+
+    private final class IdSetView extends AbstractSet<Object> {
+
+        @Override
+        public int size() {
+            return AbstractIdSet.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && containsId(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o != null && removeId(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            AbstractIdSet.this.clear();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            Iterator<E> iterator = AbstractIdSet.this.iterator();
+            return new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return iterator.next().getId();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
+        @Override
+        public void forEach(Consumer<? super Object> action) {
+            forEachId(action::accept);
+        }
+    }
+
+    private final class EntrySetView extends AbstractSet<E> {
+
+        @Override
+        public int size() {
+            return AbstractIdSet.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Identifiable && containsId(((Identifiable) o).getId());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Identifiable && removeId(((Identifiable) o).getId()) != null;
+        }
+
+        @Override
+        public void clear() {
+            AbstractIdSet.this.clear();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return AbstractIdSet.this.iterator();
+        }
+
+        @Override
+        public void forEach(Consumer<? super E> action) {
+            AbstractIdSet.this.forEach(action);
+        }
+    }
+
+    Identifiable ensureTypeValid(Object o) {
+        if (o instanceof Identifiable) {
+            return (Identifiable) o;
+        }
+        throw new IllegalArgumentException(String.format("Object %s has to be of type idSet.Identifiable.", o));
+    }
+
+}
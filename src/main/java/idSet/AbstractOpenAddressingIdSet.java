@@ -0,0 +1,315 @@
+package idSet;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+// common part of the open addressing sets, elements are kept in a flat array with their keys in a parallel array owned
+// by the subclass, collisions are resolved by linear probing with robin hood ordering and removal shifts the following
+// elements of the cluster back, so that no tombstones are needed, the subclass only knows how to hash and store its keys,
+// int keys are widened to long
+abstract class AbstractOpenAddressingIdSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MIN_CAPACITY = 4;
+
+    // package private access for test purposes
+    Object[] elements;
+    private int size;
+    private int modCount;
+
+    // package private access for test purposes
+    int capacity;
+    // package private access for test purposes
+    int modCapacity;
+    // package private access for test purposes
+    int expansionThreshold;
+    // package private access for test purposes
+    int shrinkThreshold;
+
+    AbstractOpenAddressingIdSet(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Parameter initialCapacity should be greater than 0.");
+        }
+        size = 0;
+        capacity = calculateCapacity(initialCapacity);
+        calculateModCapacity();
+        calculateResizeThresholds();
+        elements = new Object[capacity];
+    }
+
+    // the table is kept at most three quarters full, so the initial capacity is scaled up accordingly, package private access for idSet.OffHeapLongIdSet
+    static int calculateCapacity(int initialCapacity) {
+        long requiredCapacity = ((long) initialCapacity * 4 + 2) / 3;
+        if (requiredCapacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        int highestOneBit = Integer.highestOneBit((int) requiredCapacity);
+        int capacity = requiredCapacity == highestOneBit ? highestOneBit : highestOneBit << 1;
+        return Math.max(capacity, MIN_CAPACITY);
+    }
+
+    abstract long keyAt(int index);
+
+    abstract void setKey(int index, long key);
+
+    // index the key hashes to
+    abstract int homeIndexOf(long key);
+
+    // the subclass allocates the keys array of the new capacity and returns the keys of the previous elements
+    abstract IntToLongFunction replaceKeys();
+
+    abstract int keyHashCodeAt(int index);
+
+    // called for elements with the key looked up, keys are the ids themselves unless overridden
+    boolean matches(int index, Object id) {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int probeDistance(int index) {
+        return (index - homeIndexOf(keyAt(index))) & modCapacity;
+    }
+
+    // the probe stops at the first element lying closer to its home index than the key would
+    final int indexOf(long key, Object id) {
+        int index = homeIndexOf(key);
+        for (int distance = 0; ; distance++) {
+            if (elements[index] == null || probeDistance(index) < distance) {
+                return -1;
+            }
+            if (keyAt(index) == key && matches(index, id)) {
+                return index;
+            }
+            index = (index + 1) & modCapacity;
+        }
+    }
+
+    final boolean add(E e, long key, Object id) {
+        if (indexOf(key, id) >= 0) {
+            return false;
+        }
+        ensureNotFull();
+        insert(e, key);
+        expandOnAdditionIfNeeded();
+        return true;
+    }
+
+    private void insert(Object element, long key) {
+        int index = freeIndexFor(homeIndexOf(key));
+        elements[index] = element;
+        setKey(index, key);
+    }
+
+    final E removeId(long key, Object id) {
+        int index = indexOf(key, id);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    private void ensureNotFull() {
+        if (capacity == MAX_CAPACITY && size == capacity - 1) {
+            throw new IllegalStateException(String.format("Cannot add more than %s elements to %s.", size, getClass().getName()));
+        }
+    }
+
+    // the elements from the first one lying closer to its home index than the new element would, up to the end of
+    // the cluster, are shifted one slot forward, which keeps the clusters in the order robin hood displacement gives,
+    // the returned index is left for the caller to fill
+    private int freeIndexFor(int homeIndex) {
+        int index = homeIndex;
+        for (int distance = 0; elements[index] != null && probeDistance(index) >= distance; distance++) {
+            index = (index + 1) & modCapacity;
+        }
+        int empty = index;
+        while (elements[empty] != null) {
+            empty = (empty + 1) & modCapacity;
+        }
+        while (empty != index) {
+            int previous = (empty - 1) & modCapacity;
+            elements[empty] = elements[previous];
+            setKey(empty, keyAt(previous));
+            empty = previous;
+        }
+        return index;
+    }
+
+    private void expandOnAdditionIfNeeded() {
+        size++;
+        modCount++;
+        if ((capacity < MAX_CAPACITY) && (size > expansionThreshold)) {
+            capacity <<= 1;
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        calculateModCapacity();
+        calculateResizeThresholds();
+        Object[] previousElements = elements;
+        elements = new Object[capacity];
+        IntToLongFunction previousKeys = replaceKeys();
+        for (int i = 0; i < previousElements.length; i++) {
+            if (previousElements[i] != null) {
+                insert(previousElements[i], previousKeys.applyAsLong(i));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E removeAt(int index) {
+        E e = (E) elements[index];
+        shiftBack(index);
+        shrinkOnRemovalIfNeeded();
+        return e;
+    }
+
+    // the following elements of the cluster are shifted back, so that no tombstones are needed
+    private void shiftBack(int index) {
+        int next = (index + 1) & modCapacity;
+        while (elements[next] != null && probeDistance(next) > 0) {
+            elements[index] = elements[next];
+            setKey(index, keyAt(next));
+            index = next;
+            next = (next + 1) & modCapacity;
+        }
+        elements[index] = null;
+        size--;
+        modCount++;
+    }
+
+    private void shrinkOnRemovalIfNeeded() {
+        if ((capacity > 63) && (size < shrinkThreshold)) {
+            capacity >>= 2;
+            rebuild();
+        }
+    }
+
+    // keys of empty slots are never read, so only the elements are cleared
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+        Arrays.fill(elements, null);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new SlotIterator();
+    }
+
+    // fails fast on structural modifications of the set made other than through the iterator itself, the traversal
+    // starts behind an empty slot, so the backward shift of a removal never moves an element that has been returned
+    // ahead of the cursor, removal never shrinks the set, the next removeId does
+    private final class SlotIterator implements Iterator<E> {
+
+        private final Object[] elements = AbstractOpenAddressingIdSet.this.elements;
+        private final int start;
+        private int expectedModCount = modCount;
+        // offsets of slots from start
+        private int next;
+        private int lastReturned = -1;
+
+        // the table always keeps at least one slot empty
+        private SlotIterator() {
+            int start = 0;
+            while (elements[start] != null) {
+                start++;
+            }
+            this.start = start;
+            next = skipEmpty(1);
+        }
+
+        private int skipEmpty(int offset) {
+            while (offset < elements.length && elements[slot(offset)] == null) {
+                offset++;
+            }
+            return offset;
+        }
+
+        private int slot(int offset) {
+            return (start + offset) & (elements.length - 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < elements.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = skipEmpty(next + 1);
+            return (E) elements[slot(lastReturned)];
+        }
+
+        // the element following the removed one in its cluster may have been shifted into the slot just returned
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            shiftBack(slot(lastReturned));
+            next = skipEmpty(lastReturned);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private void calculateModCapacity() {
+        modCapacity = capacity - 1;
+    }
+
+    private void calculateResizeThresholds() {
+        expansionThreshold = capacity - (capacity >> 2);
+        shrinkThreshold = capacity >> 3;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AbstractOpenAddressingIdSet<?> idSet = (AbstractOpenAddressingIdSet<?>) o;
+        return size == idSet.size &&
+                containsAll(idSet);
+    }
+
+    // slots depend on the insertion order, so only the hash codes of the keys are summed up
+    @Override
+    public int hashCode() {
+        int hashCodesSum = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] != null) {
+                hashCodesSum += keyHashCodeAt(i);
+            }
+        }
+        return Objects.hash(size, hashCodesSum);
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "{" +
+                "elements=" + Arrays.toString(elements) +
+                '}';
+    }
+
+}
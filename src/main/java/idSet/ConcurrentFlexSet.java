@@ -0,0 +1,140 @@
+package idSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// writers lock one of STRIPES_COUNT stripes selected by the bucket index, readers never lock,
+// expansion copies the nodes into a new array while holding all stripes, so readers of the previous array stay consistent,
+// the set does not shrink on removal
+public class ConcurrentFlexSet<E extends Identifiable> extends AbstractConcurrentIdSet<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // package private access for test purposes, must be a power of two
+    static final int STRIPES_COUNT = 16;
+
+    private final LongAdder size = new LongAdder();
+    private final ReentrantLock[] locks;
+
+    private ConcurrentFlexSet(int initialCapacity) {
+        super(initialCapacity, STRIPES_COUNT);
+        locks = new ReentrantLock[STRIPES_COUNT];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public static <T extends Identifiable> ConcurrentFlexSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends Identifiable> ConcurrentFlexSet<T> instance(int initialCapacity) {
+        return new ConcurrentFlexSet<>(initialCapacity);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(size.sum(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        Object id = e.getId();
+        int hashCode = id.hashCode();
+        ReentrantLock lock = lockFor(hashCode);
+        AtomicReferenceArray<Node<E>> elements;
+        boolean collision;
+        lock.lock();
+        try {
+            elements = this.elements;
+            int modHashCode = modHashCode(hashCode, elements);
+            Node<E> first = elements.get(modHashCode);
+            for (Node<E> node = first; node != null; node = node.next) {
+                if (node.hashCode == hashCode && node.e.getId().equals(id)) {
+                    return false;
+                }
+            }
+            elements.set(modHashCode, new Node<>(hashCode, e, first));
+            size.increment();
+            collision = first != null;
+        } finally {
+            lock.unlock();
+        }
+        // summing up the size is not free, so it is done only when buckets start to fill up
+        if (collision) {
+            expandIfNeeded(elements);
+        }
+        return true;
+    }
+
+    private void expandIfNeeded(AtomicReferenceArray<Node<E>> elements) {
+        if (elements.length() < MAX_CAPACITY && size.sum() > elements.length()) {
+            lockAll();
+            try {
+                if (this.elements == elements) {
+                    this.elements = rebuildElements(elements, elements.length() << 1);
+                }
+            } finally {
+                unlockAll();
+            }
+        }
+    }
+
+    @Override
+    public E removeId(Object id) {
+        int hashCode = id.hashCode();
+        ReentrantLock lock = lockFor(hashCode);
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node<E>> elements = this.elements;
+            int modHashCode = modHashCode(hashCode, elements);
+            Node<E> previous = null;
+            for (Node<E> node = elements.get(modHashCode); node != null; node = node.next) {
+                if (node.hashCode == hashCode && node.e.getId().equals(id)) {
+                    if (previous == null) {
+                        elements.set(modHashCode, node.next);
+                    } else {
+                        previous.next = node.next;
+                    }
+                    size.decrement();
+                    return node.e;
+                }
+                previous = node;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            elements = new AtomicReferenceArray<>(elements.length());
+            size.reset();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private ReentrantLock lockFor(int hashCode) {
+        return locks[spread(hashCode) & (STRIPES_COUNT - 1)];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package idSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// meant for read mostly workloads, nodes are immutable, so a writer copies the part of the bucket chain preceding the change
+// and publishes the new chain with a single volatile write, readers never lock nor allocate, writers are serialized by one lock
+public class CopyOnWriteFlexSet<E extends Identifiable> extends AbstractConcurrentIdSet<E> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private volatile int size;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private CopyOnWriteFlexSet(int initialCapacity) {
+        super(initialCapacity, MIN_CAPACITY);
+    }
+
+    public static <T extends Identifiable> CopyOnWriteFlexSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends Identifiable> CopyOnWriteFlexSet<T> instance(int initialCapacity) {
+        return new CopyOnWriteFlexSet<>(initialCapacity);
+    }
+
+    @SafeVarargs
+    public static <T extends Identifiable> CopyOnWriteFlexSet<T> fromArray(T... a) {
+        CopyOnWriteFlexSet<T> flexSet = instance(a.length);
+        Collections.addAll(flexSet, a);
+        return flexSet;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        Object id = e.getId();
+        int hashCode = id.hashCode();
+        writeLock.lock();
+        try {
+            AtomicReferenceArray<Node<E>> elements = this.elements;
+            int modHashCode = modHashCode(hashCode, elements);
+            Node<E> first = elements.get(modHashCode);
+            for (Node<E> node = first; node != null; node = node.next) {
+                if (node.hashCode == hashCode && node.e.getId().equals(id)) {
+                    return false;
+                }
+            }
+            elements.set(modHashCode, new Node<>(hashCode, e, first));
+            size = size + 1;
+            if (elements.length() < MAX_CAPACITY && size > elements.length()) {
+                this.elements = rebuildElements(elements, elements.length() << 1);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public E removeId(Object id) {
+        int hashCode = id.hashCode();
+        writeLock.lock();
+        try {
+            AtomicReferenceArray<Node<E>> elements = this.elements;
+            int modHashCode = modHashCode(hashCode, elements);
+            Node<E> first = elements.get(modHashCode);
+            for (Node<E> node = first; node != null; node = node.next) {
+                if (node.hashCode == hashCode && node.e.getId().equals(id)) {
+                    elements.set(modHashCode, copyWithout(first, node));
+                    size = size - 1;
+                    if (elements.length() > 63 && size < elements.length() >> 2) {
+                        this.elements = rebuildElements(elements, elements.length() >> 2);
+                    }
+                    return node.e;
+                }
+            }
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // nodes following the removed one are shared with the previous chain
+    private Node<E> copyWithout(Node<E> first, Node<E> removed) {
+        List<Node<E>> preceding = new ArrayList<>();
+        for (Node<E> node = first; node != removed; node = node.next) {
+            preceding.add(node);
+        }
+        Node<E> result = removed.next;
+        for (int i = preceding.size() - 1; i >= 0; i--) {
+            Node<E> node = preceding.get(i);
+            result = new Node<>(node.hashCode, node.e, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            elements = new AtomicReferenceArray<>(MIN_CAPACITY);
+            size = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package idSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// writes and reads one element, read has to consume exactly the bytes written by write
+public interface ElementCodec<E extends Identifiable> {
+
+    void write(E e, DataOutput out) throws IOException;
+
+    E read(DataInput in) throws IOException;
+
+}
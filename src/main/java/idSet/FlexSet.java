@@ -1,9 +1,22 @@
 package idSet;
 
+import java.io.*;
 import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
-public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
+public class FlexSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable {
 
     private static final int MAX_CAPACITY = Integer.MAX_VALUE >> 1;
     private static final int DEFAULT_INITIAL_CAPACITY = 16; // must be greater than or equal 16
@@ -12,10 +25,33 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     static final int ID_REF_TREEIFY_THRESHOLD = 7;
     // package private access for test purposes
     static final int ID_REF_UNTREEIFY_THRESHOLD = 5;
+    // package private access for test purposes
+    static final int INCREMENTAL_REBUILD_STEP = 8;
+    // package private access for test purposes
+    static final int GET_ALL_BATCH_SIZE = 16;
+    // package private access for test purposes
+    static final int PARALLEL_BUILD_THRESHOLD = 1 << 14;
+    private static final int PARALLEL_BUILD_RANGES_PER_THREAD = 8;
+    private static final int STREAM_MAGIC = 0x49445332;
+    // readFrom presizes for at most that many elements, the header alone cannot make it allocate more
+    private static final int MAX_STREAM_PRESIZE = 1 << 16;
+    private static final int STREAM_VERSION = 1;
+
+    private static final float DEFAULT_MAX_LOAD_FACTOR = 1f;
+    private static final float DEFAULT_MIN_LOAD_FACTOR = 0.25f;
+    private static final int MIN_SHRUNK_CAPACITY = 16;
+
+    private static final int KEEP_THIS_ONLY = 1;
+    private static final int KEEP_BOTH = 2;
+    private static final int KEEP_OTHER_ONLY = 4;
 
     // package private access for test purposes
     IdRef<E>[] elements;
     private int size;
+    // sum of mixed hash codes of all ids, independent of the order of addition and of the capacity
+    private int contentHashCode;
+    // number of structural modifications, iterators and forEach fail fast when it changes under them
+    private int modCount;
 
     // package private access for test purposes
     int capacity;
@@ -26,13 +62,55 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     // package private access for test purposes
     int shrinkThreshold;
 
+    private final boolean incrementalResize;
+    // package private access for idSet.ImmutableIdSet
+    final HashStrategy hashStrategy;
+    private final float maxLoadFactor;
+    private final float minLoadFactor;
+    private final boolean shrink;
+    private final float hysteresis;
+    private final int capacityAfterClear;
+    // buckets not migrated yet during incremental rebuild, package private access for test purposes
+    IdRef<E>[] previousElements;
+    private int previousModCapacity;
+    // package private access for test purposes
+    int migrationIndex;
+
     private FlexSet(int initialCapacity) {
+        this(builder().initialCapacity(initialCapacity));
+    }
+
+    private FlexSet(Builder builder) {
+        this(builder, 0);
+    }
+
+    // the capacity is calculated from the initial capacity of the builder unless given
+    private FlexSet(Builder builder, int capacity) {
+        int initialCapacity = builder.initialCapacity;
         if (initialCapacity <= 0) {
             throw new IllegalArgumentException("Parameter initialCapacity should be greater than 0.");
         }
+        if (!(builder.maxLoadFactor > 0) || Float.isInfinite(builder.maxLoadFactor)) {
+            throw new IllegalArgumentException("Parameter maxLoadFactor should be a finite number greater than 0.");
+        }
+        if (!(builder.minLoadFactor >= 0) || builder.minLoadFactor >= builder.maxLoadFactor) {
+            throw new IllegalArgumentException("Parameter minLoadFactor should be greater than or equal 0 and less than maxLoadFactor.");
+        }
+        if (!(builder.hysteresis >= 0) || builder.hysteresis >= 1) {
+            throw new IllegalArgumentException("Parameter hysteresis should be greater than or equal 0 and less than 1.");
+        }
+        if (builder.capacityAfterClear < 0) {
+            throw new IllegalArgumentException("Parameter capacityAfterClear should be greater than or equal 0.");
+        }
+        incrementalResize = builder.incrementalResize;
+        hashStrategy = builder.hashStrategy;
+        maxLoadFactor = builder.maxLoadFactor;
+        minLoadFactor = builder.minLoadFactor;
+        shrink = builder.shrink;
+        hysteresis = builder.hysteresis;
+        capacityAfterClear = builder.capacityAfterClear;
         size = 0;
-        int highestOneBit = Integer.highestOneBit(initialCapacity);
-        capacity = initialCapacity == highestOneBit ? initialCapacity : highestOneBit << 1;
+        this.capacity = capacity > 0 ? capacity : capacityFor(initialCapacity, maxLoadFactor);
         calculateModCapacity();
         calculateResizeThresholds();
         elements = initElements();
@@ -47,13 +125,62 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
         return new FlexSet<>(initialCapacity);
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
     @SafeVarargs
     public static <T extends Identifiable> FlexSet fromArray(T... a) {
         FlexSet<T> flexSet = instance(a.length);
-        Collections.addAll(flexSet, a);
+        flexSet.addAll(Arrays.asList(a));
+        return flexSet;
+    }
+
+    // hash codes are computed in parallel, then the elements are grouped by ranges of buckets and every range is filled by
+    // a separate fork-join task, the ranges are disjoint, so no locking is needed
+    @SafeVarargs
+    public static <T extends Identifiable> FlexSet<T> parallelFromArray(T... a) {
+        FlexSet<T> flexSet = instance(Math.max(a.length, 1));
+        if (a.length < PARALLEL_BUILD_THRESHOLD) {
+            flexSet.addAll(Arrays.asList(a));
+            return flexSet;
+        }
+        int[] hashCodes = new int[a.length];
+        Arrays.parallelSetAll(hashCodes, i -> a[i].getId().hashCode());
+        int rangesCount = Math.min(flexSet.capacity, Integer.highestOneBit(ForkJoinPool.getCommonPoolParallelism() * PARALLEL_BUILD_RANGES_PER_THREAD));
+        int rangeShift = Integer.numberOfTrailingZeros(flexSet.capacity) - Integer.numberOfTrailingZeros(rangesCount);
+        int[] rangeOffsets = new int[rangesCount + 1];
+        for (int hashCode : hashCodes) {
+            rangeOffsets[(flexSet.modHashCode(hashCode) >>> rangeShift) + 1]++;
+        }
+        for (int i = 0; i < rangesCount; i++) {
+            rangeOffsets[i + 1] += rangeOffsets[i];
+        }
+        int[] positions = Arrays.copyOf(rangeOffsets, rangesCount);
+        int[] order = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            order[positions[flexSet.modHashCode(hashCodes[i]) >>> rangeShift]++] = i;
+        }
+        FlexSet<T>.ParallelBuildTask task = flexSet.new ParallelBuildTask(a, hashCodes, order, rangeOffsets, 0, rangesCount);
+        flexSet.size = ForkJoinPool.commonPool().invoke(task);
+        flexSet.contentHashCode = task.contentHashCode;
         return flexSet;
     }
 
+    // collects into a list and builds the set with parallelFromArray once all the elements are known
+    @SuppressWarnings("unchecked")
+    public static <T extends Identifiable> Collector<T, ?, FlexSet<T>> toFlexSet() {
+        return Collector.of(
+                ArrayList<T>::new,
+                List::add,
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                list -> parallelFromArray((T[]) list.toArray(new Identifiable[0])),
+                Collector.Characteristics.UNORDERED);
+    }
+
     public static <K, V> FlexSet<IdWrapper<K, V>> fromMap(Map<K, V> map) {
         Objects.requireNonNull(map);
         FlexSet<IdWrapper<K, V>> flexSet = instance(map.size());
@@ -64,93 +191,141 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     }
 
     private IdRef<E>[] initElements() {
-        @SuppressWarnings("unchecked")
-        IdRef<E>[] elements = (IdRef<E>[]) Array.newInstance(IdRef.class, capacity);
+        IdRef<E>[] elements = newElements();
         for (int i = 0; i < elements.length; i++) {
             elements[i] = new IdRef<>();
         }
         return elements;
     }
 
+    @SuppressWarnings("unchecked")
+    private IdRef<E>[] newElements() {
+        return (IdRef<E>[]) Array.newInstance(IdRef.class, capacity);
+    }
+
     @Override
     public int size() {
         return size;
     }
 
     @Override
-    public boolean isEmpty() {
-        return size == 0;
+    public E get(Object id) {
+        return get(id, id.hashCode());
     }
 
-    @Override
-    public boolean contains(Object o) {
-        return containsId(ensureTypeValid(o).getId());
+    private E get(Object id, int hashCode) {
+        if (previousElements != null) {
+            migrateIncrementally();
+            if (isInPreviousElements(hashCode)) {
+                return previousElements[previousModHashCode(hashCode)].get(id, hashCode);
+            }
+        }
+        return elements[modHashCode(hashCode)].get(id, hashCode);
     }
 
+    // ids are processed in batches, hash codes and buckets of a whole batch are loaded first and the chains are walked afterwards,
+    // so that the independent cache misses of the first pass overlap instead of being paid one after another
+    @SuppressWarnings("unchecked")
     @Override
-    public boolean containsId(Object o) {
-        return get(o) != null;
+    public int getAll(Object[] ids, E[] out) {
+        if (previousElements != null) {
+            return super.getAll(ids, out);
+        }
+        ensureGetAllArgumentsValid(ids, out);
+        int[] hashCodes = new int[GET_ALL_BATCH_SIZE];
+        IdRef<E>[] idRefs = (IdRef<E>[]) Array.newInstance(IdRef.class, GET_ALL_BATCH_SIZE);
+        int found = 0;
+        for (int from = 0; from < ids.length; from += GET_ALL_BATCH_SIZE) {
+            int batchSize = Math.min(GET_ALL_BATCH_SIZE, ids.length - from);
+            for (int i = 0; i < batchSize; i++) {
+                int hashCode = ids[from + i].hashCode();
+                hashCodes[i] = hashCode;
+                idRefs[i] = elements[modHashCode(hashCode)];
+            }
+            for (int i = 0; i < batchSize; i++) {
+                E e = idRefs[i].get(ids[from + i], hashCodes[i]);
+                out[from + i] = e;
+                if (e != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
     }
 
     @Override
-    public E getByElem(E e) {
+    public boolean add(E e) {
         Objects.requireNonNull(e);
-        return get(e.getId());
+        return add(e, e.getId().hashCode());
     }
 
-    @Override
-    public E get(Object id) {
-        int hashCode = id.hashCode();
-        return elements[modHashCode(hashCode)].get(id, hashCode);
+    private boolean add(E e, int hashCode) {
+        if (previousElements != null) {
+            migrateIncrementally();
+            if (isInPreviousElements(hashCode)) {
+                return add(e, hashCode, previousElements, previousModHashCode(hashCode));
+            }
+        }
+        return add(e, hashCode, elements, modHashCode(hashCode));
     }
 
+    // the set is presized up front for the larger of both sizes, as HashMap.putAll does, so that adding a collection
+    // overlapping with this set does not inflate it to the sum of both sizes
     @Override
-    public Object[] toArray() {
-        Object[] a = new Object[size];
-        return copyToArray(a);
+    public boolean addAll(Collection<? extends E> c) {
+        Objects.requireNonNull(c);
+        ensureCapacity(Math.max(size, c.size()));
+        boolean result = false;
+        for (E e : c) {
+            if (add(e)) {
+                result = true;
+            }
+        }
+        return result;
     }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public <T> T[] toArray(T[] a) {
-        Objects.requireNonNull(a);
-        ensureCapacityOfGivenArray(a);
-        a = (T[]) Array.newInstance(a.getClass().getComponentType(), size);
-        return copyToArray(a);
+    // numberOfElements elements fit in afterwards without any further expansion
+    public void ensureCapacity(int numberOfElements) {
+        ensureCapacity((long) numberOfElements);
     }
 
-    @SuppressWarnings("unchecked")
-    public <K> Map<K, E> toHashMap() {
-        Map<K, E> map = new HashMap<>();
-        for (E e : this) {
-            map.put((K) e.getId(), e);
+    private void ensureCapacity(long numberOfElements) {
+        int requiredCapacity = capacityFor(numberOfElements, maxLoadFactor);
+        if (requiredCapacity > capacity) {
+            resize(requiredCapacity);
         }
-        return map;
     }
 
-    private <T> void ensureCapacityOfGivenArray(T[] a) {
-        if (a.length < size) {
-            throw new IllegalArgumentException(String.format("Cannot fit idSet.FlexSet elements into array of length %s.", a.length));
+    // shrinks to the least capacity holding the current elements, the next removal does not shrink any further
+    public void trimToSize() {
+        int requiredCapacity = capacityFor(Math.max(size, 1), maxLoadFactor);
+        if (requiredCapacity < capacity) {
+            resize(requiredCapacity);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T[] copyToArray(T[] a) {
-        int i = 0;
-        for (E e : this) {
-            a[i] = (T) e;
-            i++;
-        }
-        return a;
+    // the bucket array is rebuilt at once even if incremental resize is enabled, as the caller waits for the resize anyway
+    private void resize(int capacity) {
+        completeIncrementalRebuild();
+        modCount++;
+        this.capacity = capacity;
+        calculateModCapacity();
+        calculateResizeThresholds();
+        elements = rebuildElements();
     }
 
-    @Override
-    public boolean add(E e) {
-        Objects.requireNonNull(e);
-        int hashCode = e.getId().hashCode();
-        int modHashCode = modHashCode(hashCode);
+    // the least power of two capacity keeping numberOfElements elements at or below the load factor
+    private static int capacityFor(long numberOfElements, float loadFactor) {
+        long requiredCapacity = Math.max(Math.min((long) Math.ceil(numberOfElements / (double) loadFactor), MAX_CAPACITY), 1);
+        int highestOneBit = Integer.highestOneBit((int) requiredCapacity);
+        return requiredCapacity == highestOneBit ? highestOneBit : highestOneBit << 1;
+    }
+
+    private boolean add(E e, int hashCode, IdRef<E>[] elements, int modHashCode) {
         IdRef<E> idRef = elements[modHashCode];
         if (idRef.add(e, hashCode)) {
+            contentHashCode += mix(hashCode);
+            modCount++;
             if (expandOnAdditionIfNeeded()) {
                 treeifyIfNeeded(idRef, modHashCode, elements);
             }
@@ -176,9 +351,63 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     }
 
     private void rebuild() {
+        completeIncrementalRebuild();
+        int previousModCapacity = modCapacity;
         calculateModCapacity();
         calculateResizeThresholds();
-        this.elements = rebuildElements();
+        if (incrementalResize) {
+            startIncrementalRebuild(previousModCapacity);
+        } else {
+            this.elements = rebuildElements();
+        }
+    }
+
+    // buckets of the new array are created lazily, when the buckets of the previous array which map onto them are migrated
+    private void startIncrementalRebuild(int previousModCapacity) {
+        this.previousElements = elements;
+        this.previousModCapacity = previousModCapacity;
+        migrationIndex = 0;
+        elements = newElements();
+    }
+
+    // at least INCREMENTAL_REBUILD_STEP buckets, and enough of them for the migration to complete before the size can reach
+    // either resize threshold, as reaching it with buckets left would migrate all of them within a single operation
+    private void migrateIncrementally() {
+        int remaining = previousElements.length - migrationIndex;
+        int headroom = Math.max(Math.min(expansionThreshold - size, shrink ? size - shrinkThreshold : Integer.MAX_VALUE), 1);
+        migrateUpTo(migrationIndex + Math.min(Math.max(INCREMENTAL_REBUILD_STEP, remaining / headroom + 1), remaining));
+    }
+
+    private void completeIncrementalRebuild() {
+        if (previousElements != null) {
+            migrateUpTo(previousElements.length);
+        }
+    }
+
+    private void migrateUpTo(int limit) {
+        while (migrationIndex < limit) {
+            initTargetElements(migrationIndex);
+            rebuildElement(elements, previousElements[migrationIndex]);
+            previousElements[migrationIndex] = null;
+            migrationIndex++;
+        }
+        if (migrationIndex == previousElements.length) {
+            previousElements = null;
+        }
+    }
+
+    private void initTargetElements(int previousModHashCode) {
+        if (elements.length > previousElements.length) {
+            for (int i = previousModHashCode; i < elements.length; i += previousElements.length) {
+                elements[i] = new IdRef<>();
+            }
+        } else if (previousModHashCode < elements.length) {
+            elements[previousModHashCode] = new IdRef<>();
+        }
+    }
+
+    private boolean isInPreviousElements(int hashCode) {
+        return previousElements != null && previousModHashCode(hashCode) >= migrationIndex;
     }
 
     private IdRef<E>[] rebuildElements() {
@@ -207,19 +436,24 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     }
 
 
-    @Override
-    public boolean remove(Object o) {
-        Objects.requireNonNull(o);
-        return removeId(ensureTypeValid(o).getId()) != null;
-    }
-
     @Override
     public E removeId(Object id) {
         int hashCode = id.hashCode();
-        int modHashCode = modHashCode(hashCode);
+        if (previousElements != null) {
+            migrateIncrementally();
+            if (isInPreviousElements(hashCode)) {
+                return removeId(id, hashCode, previousElements, previousModHashCode(hashCode));
+            }
+        }
+        return removeId(id, hashCode, elements, modHashCode(hashCode));
+    }
+
+    private E removeId(Object id, int hashCode, IdRef<E>[] elements, int modHashCode) {
         IdRef<E> idRef = elements[modHashCode];
         E e = idRef.removeId(id, hashCode);
         if (e != null) {
+            contentHashCode -= mix(hashCode);
+            modCount++;
             if (shrinkOnRemovalIfNeeded()) {
                 untreeifyIfNeeded(idRef, modHashCode, elements);
             }
@@ -229,213 +463,539 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
 
     private boolean shrinkOnRemovalIfNeeded() {
         size--;
-        if ((capacity > 63) && (size < shrinkThreshold)) {
-            capacity >>= 2;
-            rebuild();
-            return false;
+        return !shrinkIfNeeded();
+    }
+
+    // the capacity is reduced, so that the load factor lands hysteresis below the max load factor and a few additions
+    // do not expand the set right back, an incremental shrink leaves room for as many additions as there are elements,
+    // so that the buckets can be migrated a few at a time, returns true if the set has been rebuilt
+    private boolean shrinkIfNeeded() {
+        if (shrink && (capacity > 63) && (size < shrinkThreshold)) {
+            long requiredSize = incrementalResize ? 2L * size : size;
+            int shrunkCapacity = Math.max(capacityFor(requiredSize, maxLoadFactor * (1 - hysteresis)), MIN_SHRUNK_CAPACITY);
+            if (shrunkCapacity < capacity) {
+                capacity = shrunkCapacity;
+                rebuild();
+                return true;
+            }
         }
-        return true;
+        return false;
     }
 
+    // removal through an iterator may leave trees smaller than the untreeify threshold behind
     private void untreeifyIfNeeded(IdRef<E> idRef, int modHashCode, IdRef<E>[] elements) {
-        if (idRef.size == ID_REF_UNTREEIFY_THRESHOLD && idRef.getClass() == TreeIdRef.class) {
+        if (idRef.size <= ID_REF_UNTREEIFY_THRESHOLD && idRef.getClass() == TreeIdRef.class) {
             elements[modHashCode] = TreeIdRef.toIdRef(idRef);
         }
     }
 
+    // bucket heads are reset in place, so clearing allocates nothing unless the set shrinks to capacityAfterClear,
+    // only heads of treeified buckets and buckets not created yet by an incremental rebuild are replaced
     @Override
-    public boolean containsAll(Collection<?> c) {
-        if (checkNecessaryConditionsForContainsAll(c)) {
-            return false;
-        }
-        for (Object o : c) {
-            if (!(o instanceof Identifiable) || !containsId(((Identifiable) o).getId())) {
-                return false;
+    public void clear() {
+        size = 0;
+        contentHashCode = 0;
+        modCount++;
+        previousElements = null;
+        int clearedCapacity = capacityAfterClear > 0 ? capacityFor(capacityAfterClear, maxLoadFactor) : capacity;
+        if (clearedCapacity < capacity) {
+            capacity = clearedCapacity;
+            calculateModCapacity();
+            calculateResizeThresholds();
+            elements = initElements();
+            return;
+        }
+        IdRef<E>[] elements = this.elements;
+        for (int i = 0; i < elements.length; i++) {
+            IdRef<E> idRef = elements[i];
+            if (idRef == null || idRef.getClass() != IdRef.class) {
+                elements[i] = new IdRef<>();
+            } else if (idRef.e != null) {
+                idRef.reset();
             }
         }
-        return true;
     }
 
     @Override
-    public boolean containsAllIds(Collection<?> c) {
-        if (checkNecessaryConditionsForContainsAll(c)) {
-            return false;
-        }
-        for (Object o : c) {
-            if (!containsId(o)) {
-                return false;
+    public Iterator<E> iterator() {
+        completeIncrementalRebuild();
+        return new IdRefIterator();
+    }
+
+    // the whole set is traversed once and the buckets are compacted on the way, the set shrinks at most once at the end
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        completeIncrementalRebuild();
+        int previousSize = size;
+        for (int i = 0; i < elements.length; i++) {
+            IdRef<E> element = elements[i];
+            IdRef<E> idRef = element;
+            while (idRef.next != null) {
+                if (filter.test(idRef.e)) {
+                    contentHashCode -= mix(idRef.hashCode);
+                    size--;
+                    modCount++;
+                    idRef = element.removeElementOf(idRef);
+                } else {
+                    idRef = idRef.next;
+                }
             }
+            untreeifyIfNeeded(element, i, elements);
+        }
+        if (size == previousSize) {
+            return false;
         }
+        shrinkIfNeeded();
         return true;
     }
 
-    private boolean checkNecessaryConditionsForContainsAll(Collection<?> c) {
+    @Override
+    public boolean retainAll(Collection<?> c) {
         Objects.requireNonNull(c);
-        return c instanceof Set && size < c.size();
+        return removeIf(e -> !c.contains(e));
     }
 
     @Override
-    public boolean addAll(Collection<? extends E> c) {
+    public boolean retainAllIds(Collection<?> c) {
         Objects.requireNonNull(c);
-        boolean result = false;
-        for (E e : c) {
-            if (add(e)) {
-                result = true;
+        return removeIf(e -> !c.contains(e.getId()));
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        completeIncrementalRebuild();
+        int expectedModCount = modCount;
+        for (IdRef<E> element : elements) {
+            for (IdRef<E> idRef = element; idRef != null && idRef.next != null; idRef = idRef.next) {
+                action.accept(idRef.e);
             }
         }
-        return result;
+        checkForComodification(expectedModCount);
     }
 
     @Override
-    public boolean removeAll(Collection<?> c) {
-        Objects.requireNonNull(c);
-        boolean result = false;
-        for (Object o : c) {
-            if (o instanceof Identifiable && removeId(((Identifiable) o).getId()) != null) {
-                result = true;
+    public void forEachId(Consumer<Object> action) {
+        Objects.requireNonNull(action);
+        completeIncrementalRebuild();
+        int expectedModCount = modCount;
+        for (IdRef<E> element : elements) {
+            for (IdRef<E> idRef = element; idRef != null && idRef.next != null; idRef = idRef.next) {
+                action.accept(idRef.e.getId());
             }
-
         }
-        return result;
+        checkForComodification(expectedModCount);
     }
 
     @Override
-    public boolean removeAllIds(Collection<?> c) {
-        Objects.requireNonNull(c);
-        boolean result = false;
-        for (Object o : c) {
-            if (removeId(o) != null) {
-                result = true;
+    public void forEachIndexed(ObjIntConsumer<? super E> action) {
+        Objects.requireNonNull(action);
+        completeIncrementalRebuild();
+        int expectedModCount = modCount;
+        int i = 0;
+        for (IdRef<E> element : elements) {
+            for (IdRef<E> idRef = element; idRef != null && idRef.next != null; idRef = idRef.next) {
+                action.accept(idRef.e, i++);
             }
         }
-        return result;
+        checkForComodification(expectedModCount);
     }
 
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        Objects.requireNonNull(c);
-        boolean result = false;
-        for (E e : this) {
-            if (!c.contains(e)) {
-                if (remove(e)) {
-                    result = true;
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    // fails fast on structural modifications of the set made other than through the iterator itself, removal unlinks the
+    // returned element from its bucket without looking it up and never shrinks the set, the next removeId does
+    private final class IdRefIterator implements Iterator<E> {
+
+        private final IdRef<E>[] elements = FlexSet.this.elements;
+        private int expectedModCount = modCount;
+        private IdRef<E> next;
+        private int nextIndex;
+        private IdRef<E> lastReturned;
+        private int lastReturnedIndex;
+
+        private IdRefIterator() {
+            advance(elements[0], 0);
+        }
+
+        // next becomes the first element held by idRef or the chains of the buckets following index
+        private void advance(IdRef<E> idRef, int index) {
+            while (idRef.next == null) {
+                if (++index == elements.length) {
+                    next = null;
+                    return;
                 }
+                idRef = elements[index];
+            }
+            next = idRef;
+            nextIndex = index;
+        }
 
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            checkForComodification(expectedModCount);
+            if (next == null) {
+                throw new NoSuchElementException();
             }
+            lastReturned = next;
+            lastReturnedIndex = nextIndex;
+            advance(next.next, nextIndex);
+            return lastReturned.e;
+        }
+
+        // the node following the removed element may have been unlinked with its element moved into another node,
+        // so the iteration continues from the node returned by the bucket
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification(expectedModCount);
+            contentHashCode -= mix(lastReturned.hashCode);
+            size--;
+            IdRef<E> following = elements[lastReturnedIndex].removeElementOf(lastReturned);
+            if (following.next != null) {
+                next = following;
+                nextIndex = lastReturnedIndex;
+            }
+            lastReturned = null;
+            expectedModCount = ++modCount;
         }
-        return result;
     }
 
+    // splits on bucket ranges, only the spliterator covering the whole table knows its exact size
     @Override
-    public boolean retainAllIds(Collection<?> c) {
-        Objects.requireNonNull(c);
-        boolean result = false;
-        for (E e : this) {
-            Object id = e.getId();
-            if (!c.contains(id)) {
-                if (removeId(id) != null) {
-                    result = true;
-                }
+    public Spliterator<E> spliterator() {
+        completeIncrementalRebuild();
+        return new IdRefSpliterator<>(elements, 0, elements.length, size, true);
+    }
 
+    private int modHashCode(int hashCode) {
+        return hashStrategy.spread(hashCode) & modCapacity;
+    }
+
+    private int previousModHashCode(int hashCode) {
+        return hashStrategy.spread(hashCode) & previousModCapacity;
+    }
+
+    private void calculateModCapacity() {
+        modCapacity = capacity - 1;
+    }
+
+    private void calculateResizeThresholds() {
+        expansionThreshold = (int) Math.min((long) (capacity * (double) maxLoadFactor), Integer.MAX_VALUE);
+        shrinkThreshold = (int) (capacity * (double) minLoadFactor);
+    }
+
+    // elements present in both sets are taken from this set
+    public FlexSet<E> union(FlexSet<E> other) {
+        return merge(other, KEEP_THIS_ONLY | KEEP_BOTH | KEEP_OTHER_ONLY);
+    }
+
+    public FlexSet<E> intersect(FlexSet<E> other) {
+        return merge(other, KEEP_BOTH);
+    }
+
+    public FlexSet<E> difference(FlexSet<E> other) {
+        return merge(other, KEEP_THIS_ONLY);
+    }
+
+    // the elements of the other set are added to the buckets of this set with their stored hash codes, elements present
+    // in both sets are kept from this set
+    public boolean unionInPlace(FlexSet<E> other) {
+        Objects.requireNonNull(other);
+        other.completeIncrementalRebuild();
+        ensureCapacity(Math.max(size, other.size));
+        int previousSize = size;
+        for (IdRef<E> otherIdRef : other.elements) {
+            for (IdRef<E> idRef = otherIdRef; idRef != null && idRef.next != null; idRef = idRef.next) {
+                add(idRef.e, idRef.hashCode);
             }
         }
-        return result;
+        return size != previousSize;
     }
 
-    @Override
-    public void clear() {
-        size = 0;
-        elements = initElements();
+    public boolean intersectInPlace(FlexSet<E> other) {
+        return removeInPlace(other, false);
     }
 
-    @Override
-    public Iterator<E> iterator() {
-        return new Iterator<E>() {
-            private IdRef<E> current;
-            private int index;
+    public boolean differenceInPlace(FlexSet<E> other) {
+        return removeInPlace(other, true);
+    }
 
-            @Override
-            public boolean hasNext() {
-                while (index < elements.length) {
-                    if (hasNextForCurrent()) {
-                        return true;
-                    }
-                    prepareForNext();
-                }
-                return false;
+    // elements are unlinked from the buckets of this set without allocating a new set, elements present in the other set
+    // are removed if present is true and the remaining ones otherwise, the set shrinks once at the end if needed
+    private boolean removeInPlace(FlexSet<E> other, boolean present) {
+        Objects.requireNonNull(other);
+        completeIncrementalRebuild();
+        int previousSize = size;
+        for (IdRefIterator iterator = new IdRefIterator(); iterator.hasNext(); ) {
+            E e = iterator.next();
+            if ((other.get(e.getId(), iterator.lastReturned.hashCode) != null) == present) {
+                iterator.remove();
             }
+        }
+        shrinkIfNeeded();
+        return size != previousSize;
+    }
 
-            private boolean hasNextForCurrent() {
-                if (current == null) {
-                    current = elements[index];
+    // capacities are powers of two, so bucket i of the result with the greater of both capacities gathers elements of bucket
+    // i & modCapacity of each operand only, the hash-sorted chains of both buckets are merged without computing any hash code
+    private FlexSet<E> merge(FlexSet<E> other, int keep) {
+        Objects.requireNonNull(other);
+        completeIncrementalRebuild();
+        other.completeIncrementalRebuild();
+        FlexSet<E> result = new FlexSet<>(configuration(), Math.max(capacity, other.capacity));
+        if (other.hashStrategy != hashStrategy) {
+            result.mergeByLookup(this, other, keep);
+        } else {
+            for (int i = 0; i < result.capacity; i++) {
+                result.mergeBucket(i, elements[i & modCapacity], other.elements[i & other.modCapacity], keep);
+            }
+        }
+        result.ensureCapacity(result.size);
+        return result;
+    }
+
+    // buckets of sets with different hash strategies are not aligned, so every element is looked up in the other set
+    private void mergeByLookup(FlexSet<E> thisSet, FlexSet<E> other, int keep) {
+        for (IdRef<E> thisIdRef : thisSet.elements) {
+            for (IdRef<E> idRef = thisIdRef; idRef != null && idRef.next != null; idRef = idRef.next) {
+                if (idRef.e != null) {
+                    addToBucketIfKept(idRef, modHashCode(idRef.hashCode), keep, other.get(idRef.e.getId(), idRef.hashCode) != null ? KEEP_BOTH : KEEP_THIS_ONLY);
+                }
+            }
+        }
+        for (IdRef<E> otherIdRef : other.elements) {
+            for (IdRef<E> idRef = otherIdRef; idRef != null && idRef.next != null; idRef = idRef.next) {
+                if (idRef.e != null && thisSet.get(idRef.e.getId(), idRef.hashCode) == null) {
+                    addToBucketIfKept(idRef, modHashCode(idRef.hashCode), keep, KEEP_OTHER_ONLY);
                 }
-                return current.next != null;
             }
+        }
+    }
 
-            private void prepareForNext() {
-                current = null;
-                index++;
+    private void mergeBucket(int modHashCode, IdRef<E> thisIdRef, IdRef<E> otherIdRef, int keep) {
+        if (thisIdRef.getClass() != IdRef.class || otherIdRef.getClass() != IdRef.class) {
+            mergeBucketByLookup(modHashCode, thisIdRef, otherIdRef, keep);
+            return;
+        }
+        IdRef<E> thisCurrent = skipOtherBuckets(thisIdRef, modHashCode);
+        IdRef<E> otherCurrent = skipOtherBuckets(otherIdRef, modHashCode);
+        while (thisCurrent != null || otherCurrent != null) {
+            if (otherCurrent == null || (thisCurrent != null && thisCurrent.hashCode < otherCurrent.hashCode)) {
+                addToBucketIfKept(thisCurrent, modHashCode, keep, KEEP_THIS_ONLY);
+                thisCurrent = skipOtherBuckets(thisCurrent.next, modHashCode);
+            } else if (thisCurrent == null || otherCurrent.hashCode < thisCurrent.hashCode) {
+                addToBucketIfKept(otherCurrent, modHashCode, keep, KEEP_OTHER_ONLY);
+                otherCurrent = skipOtherBuckets(otherCurrent.next, modHashCode);
+            } else {
+                IdRef<E> thisRunEnd = skipHashCode(thisCurrent, modHashCode);
+                IdRef<E> otherRunEnd = skipHashCode(otherCurrent, modHashCode);
+                mergeEqualHashCodes(modHashCode, thisCurrent, thisRunEnd, otherCurrent, otherRunEnd, keep);
+                thisCurrent = thisRunEnd;
+                otherCurrent = otherRunEnd;
             }
+        }
+    }
 
-            @Override
-            public E next() {
-                E result = current.e;
-                current = current.next;
-                return result;
+    // runs of equal hash codes are short, so they are compared pairwise
+    private void mergeEqualHashCodes(int modHashCode, IdRef<E> thisRun, IdRef<E> thisRunEnd, IdRef<E> otherRun, IdRef<E> otherRunEnd, int keep) {
+        for (IdRef<E> idRef = thisRun; idRef != thisRunEnd; idRef = skipOtherBuckets(idRef.next, modHashCode)) {
+            addToBucketIfKept(idRef, modHashCode, keep, containsInRun(otherRun, otherRunEnd, idRef.e.getId(), modHashCode) ? KEEP_BOTH : KEEP_THIS_ONLY);
+        }
+        for (IdRef<E> idRef = otherRun; idRef != otherRunEnd; idRef = skipOtherBuckets(idRef.next, modHashCode)) {
+            if (!containsInRun(thisRun, thisRunEnd, idRef.e.getId(), modHashCode)) {
+                addToBucketIfKept(idRef, modHashCode, keep, KEEP_OTHER_ONLY);
             }
+        }
+    }
 
-        };
+    private boolean containsInRun(IdRef<E> run, IdRef<E> runEnd, Object id, int modHashCode) {
+        for (IdRef<E> idRef = run; idRef != runEnd; idRef = skipOtherBuckets(idRef.next, modHashCode)) {
+            if (idRef.e.getId().equals(id)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    @Override
-    public Set<Object> idSet() {
-        Set<Object> idSet = new HashSet<>();
-        for (E e : this) {
-            idSet.add(e.getId());
+    // trees are not kept in hash order along their chains, so their elements are looked up one by one
+    private void mergeBucketByLookup(int modHashCode, IdRef<E> thisIdRef, IdRef<E> otherIdRef, int keep) {
+        for (IdRef<E> idRef = skipOtherBuckets(thisIdRef, modHashCode); idRef != null; idRef = skipOtherBuckets(idRef.next, modHashCode)) {
+            addToBucketIfKept(idRef, modHashCode, keep, otherIdRef.get(idRef.e.getId(), idRef.hashCode) != null ? KEEP_BOTH : KEEP_THIS_ONLY);
+        }
+        for (IdRef<E> idRef = skipOtherBuckets(otherIdRef, modHashCode); idRef != null; idRef = skipOtherBuckets(idRef.next, modHashCode)) {
+            if (thisIdRef.get(idRef.e.getId(), idRef.hashCode) == null) {
+                addToBucketIfKept(idRef, modHashCode, keep, KEEP_OTHER_ONLY);
+            }
         }
-        return idSet;
     }
 
-    @Override
-    public Set<E> entrySet() {
-        return new HashSet<>(this);
+    // returns null at the end of the chain
+    private IdRef<E> skipOtherBuckets(IdRef<E> idRef, int modHashCode) {
+        while (idRef != null && idRef.next != null) {
+            if (idRef.e != null && modHashCode(idRef.hashCode) == modHashCode) {
+                return idRef;
+            }
+            idRef = idRef.next;
+        }
+        return null;
     }
 
-    private int modHashCode(int hashCode) {
-        return (hashCode ^ (hashCode >>> 16)) & modCapacity;
+    private IdRef<E> skipHashCode(IdRef<E> idRef, int modHashCode) {
+        int hashCode = idRef.hashCode;
+        do {
+            idRef = skipOtherBuckets(idRef.next, modHashCode);
+        } while (idRef != null && idRef.hashCode == hashCode);
+        return idRef;
     }
 
-    private void calculateModCapacity() {
-        modCapacity = capacity - 1;
+    private void addToBucketIfKept(IdRef<E> source, int modHashCode, int keep, int kind) {
+        if ((keep & kind) != 0) {
+            IdRef<E> idRef = elements[modHashCode];
+            if (idRef.add(source.e, source.hashCode)) {
+                size++;
+                contentHashCode += mix(source.hashCode);
+                treeifyIfNeeded(idRef, modHashCode, elements);
+            }
+        }
     }
 
-    private void calculateResizeThresholds() {
-        expansionThreshold = capacity;
-        shrinkThreshold = capacity >> 2;
+    // builder with the options of this set
+    private Builder configuration() {
+        return builder()
+                .incrementalResize(incrementalResize)
+                .hashStrategy(hashStrategy)
+                .maxLoadFactor(maxLoadFactor)
+                .minLoadFactor(minLoadFactor)
+                .shrink(shrink)
+                .hysteresis(hysteresis)
+                .capacityAfterClear(capacityAfterClear);
+    }
+
+    // the returned snapshot does not reflect later changes of this set and spreads hash codes with the same strategy
+    public ImmutableIdSet<E> freeze() {
+        return ImmutableIdSet.copyOf(this, hashStrategy);
+    }
 
+    // readable with idSet.MappedIdSet.open and the same codec, the set must not be modified while it is written
+    public void writeSnapshot(Path path, ElementCodec<? super E> codec) throws IOException {
+        MappedIdSet.writeSnapshot(path, this, codec);
     }
 
-    private Identifiable ensureTypeValid(Object o) {
-        if (o instanceof Identifiable) {
-            return (Identifiable) o;
+    // header with the size and the capacity followed by the elements, the stream is flushed but not closed
+    public void writeTo(OutputStream out, ElementCodec<? super E> codec) throws IOException {
+        Objects.requireNonNull(out);
+        Objects.requireNonNull(codec);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(STREAM_MAGIC);
+        data.writeInt(STREAM_VERSION);
+        data.writeInt(size);
+        data.writeInt(capacity);
+        for (E e : this) {
+            codec.write(e, data);
         }
-        throw new IllegalArgumentException(String.format("Object %s has to be of type idSet.Identifiable.", o));
+        data.flush();
+    }
+
+    public void writeTo(WritableByteChannel channel, ElementCodec<? super E> codec) throws IOException {
+        writeTo(Channels.newOutputStream(Objects.requireNonNull(channel)), codec);
+    }
+
+    public static <T extends Identifiable> FlexSet<T> readFrom(InputStream in, ElementCodec<? extends T> codec) throws IOException {
+        return readFrom(in, codec, builder());
+    }
+
+    // the set is sized from the header before any element is read, so it is not rebuilt while reading up to
+    // MAX_STREAM_PRESIZE elements and grows as elements arrive beyond that, so that a corrupted header cannot make a short
+    // stream allocate buckets for elements it does not contain, the capacity of the written set is kept unless the load
+    // factors of the builder require a bigger one or allow only a smaller one, the stream is read exactly up to the last
+    // element and is not buffered, callers reading from files or sockets should buffer it themselves
+    public static <T extends Identifiable> FlexSet<T> readFrom(InputStream in, ElementCodec<? extends T> codec, Builder builder) throws IOException {
+        Objects.requireNonNull(in);
+        Objects.requireNonNull(codec);
+        Objects.requireNonNull(builder);
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        if (data.readInt() != STREAM_MAGIC) {
+            throw new IOException("Stream does not contain an idSet.FlexSet.");
+        }
+        int version = data.readInt();
+        if (version != STREAM_VERSION) {
+            throw new IOException(String.format("Stream contains an idSet.FlexSet of unsupported version %s.", version));
+        }
+        int size = data.readInt();
+        int capacity = data.readInt();
+        if (size < 0 || capacity <= 0 || Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY) {
+            throw new IOException(String.format("Stream contains an idSet.FlexSet of invalid size %s or capacity %s.", size, capacity));
+        }
+        int presize = Math.min(size, MAX_STREAM_PRESIZE);
+        int maxCapacity = capacityFor(presize, builder.minLoadFactor > 0 ? builder.minLoadFactor : builder.maxLoadFactor);
+        FlexSet<T> flexSet = new FlexSet<>(builder, Math.max(Math.min(capacity, maxCapacity), capacityFor(presize, builder.maxLoadFactor)));
+        for (int i = 0; i < size; i++) {
+            T e = codec.read(data);
+            if (!flexSet.add(e)) {
+                throw new IOException(String.format("Stream contains id %s more than once.", e.getId()));
+            }
+        }
+        return flexSet;
+    }
+
+    public static <T extends Identifiable> FlexSet<T> readFrom(ReadableByteChannel channel, ElementCodec<? extends T> codec) throws IOException {
+        return readFrom(Channels.newInputStream(Objects.requireNonNull(channel)), codec);
     }
 
+    // the content hash codes reject almost all unequal sets before any element is looked up
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FlexSet<?> flexSet = (FlexSet<?>) o;
         return size == flexSet.size &&
-                containsAll(flexSet);
+                contentHashCode == flexSet.contentHashCode &&
+                containsAllOf(flexSet);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof FlexSet) {
+            FlexSet<?> flexSet = (FlexSet<?>) c;
+            return flexSet.size <= size && containsAllOf(flexSet);
+        }
+        return super.containsAll(c);
+    }
+
+    // hash codes stored in the other set are reused, so no id hash code is computed
+    private boolean containsAllOf(FlexSet<?> flexSet) {
+        flexSet.completeIncrementalRebuild();
+        for (IdRef<?> element : flexSet.elements) {
+            for (IdRef<?> idRef = element; idRef != null && idRef.next != null; idRef = idRef.next) {
+                if (idRef.e != null && get(idRef.e.getId(), idRef.hashCode) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(capacity, size);
-        result = 31 * result + Arrays.hashCode(elements);
-        return result;
+        return contentHashCode;
+    }
+
+    // spreads the bits of the hash code, so that sums of hash codes of different sets rarely collide
+    private static int mix(int hashCode) {
+        return HashStrategy.fmix32(hashCode);
     }
 
     @Override
@@ -445,11 +1005,210 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
 
     @Override
     public String toString() {
+        completeIncrementalRebuild();
         return "idSet.FlexSet{" +
                 "elements=" + Arrays.toString(elements) +
                 '}';
     }
 
+    public static final class Builder {
+
+        private int initialCapacity = DEFAULT_INITIAL_CAPACITY;
+        private boolean incrementalResize;
+        private HashStrategy hashStrategy = HashStrategy.DEFAULT;
+        private float maxLoadFactor = DEFAULT_MAX_LOAD_FACTOR;
+        private float minLoadFactor = DEFAULT_MIN_LOAD_FACTOR;
+        private boolean shrink = true;
+        private float hysteresis;
+        private int capacityAfterClear;
+
+        private Builder() {
+        }
+
+        public Builder initialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        // when enabled, expansion and shrinking migrate a bounded number of buckets on each add, get and removeId instead of rebuilding at once,
+        // iteration, forEach, removeIf, spliterator, toString, set algebra and serialization still complete a pending migration first
+        public Builder incrementalResize(boolean incrementalResize) {
+            this.incrementalResize = incrementalResize;
+            return this;
+        }
+
+        // sets with the same strategy instance share bucket indices, so their set algebra merges buckets directly
+        public Builder hashStrategy(HashStrategy hashStrategy) {
+            this.hashStrategy = Objects.requireNonNull(hashStrategy);
+            return this;
+        }
+
+        // the set expands once the number of elements per bucket exceeds maxLoadFactor, lower values trade memory for shorter chains
+        public Builder maxLoadFactor(float maxLoadFactor) {
+            this.maxLoadFactor = maxLoadFactor;
+            return this;
+        }
+
+        // the set shrinks once the number of elements per bucket drops below minLoadFactor
+        public Builder minLoadFactor(float minLoadFactor) {
+            this.minLoadFactor = minLoadFactor;
+            return this;
+        }
+
+        // when disabled, the set never shrinks on removal, trimToSize still does
+        public Builder shrink(boolean shrink) {
+            this.shrink = shrink;
+            return this;
+        }
+
+        // fraction of maxLoadFactor kept free after shrinking, so that a workload oscillating around the shrink threshold
+        // does not expand the set right after it has shrunk
+        public Builder hysteresis(float hysteresis) {
+            this.hysteresis = hysteresis;
+            return this;
+        }
+
+        // number of elements the set is sized for after clear, if it has grown bigger, 0 keeps the capacity as it is,
+        // so that sets cleared and refilled over and over reuse their buckets
+        public Builder capacityAfterClear(int capacityAfterClear) {
+            this.capacityAfterClear = capacityAfterClear;
+            return this;
+        }
+
+        public <T extends Identifiable> FlexSet<T> build() {
+            return new FlexSet<>(this);
+        }
+    }
+
+    // fills the buckets of ranges from fromRange inclusive to toRange exclusive, returns the number of elements added
+    private final class ParallelBuildTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final E[] a;
+        private final int[] hashCodes;
+        private final int[] order;
+        private final int[] rangeOffsets;
+        private final int fromRange;
+        private final int toRange;
+        private int contentHashCode;
+
+        private ParallelBuildTask(E[] a, int[] hashCodes, int[] order, int[] rangeOffsets, int fromRange, int toRange) {
+            this.a = a;
+            this.hashCodes = hashCodes;
+            this.order = order;
+            this.rangeOffsets = rangeOffsets;
+            this.fromRange = fromRange;
+            this.toRange = toRange;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (toRange - fromRange > 1) {
+                int middleRange = (fromRange + toRange) >>> 1;
+                ParallelBuildTask prefix = new ParallelBuildTask(a, hashCodes, order, rangeOffsets, fromRange, middleRange);
+                prefix.fork();
+                ParallelBuildTask suffix = new ParallelBuildTask(a, hashCodes, order, rangeOffsets, middleRange, toRange);
+                int added = suffix.compute() + prefix.join();
+                contentHashCode = suffix.contentHashCode + prefix.contentHashCode;
+                return added;
+            }
+            int added = 0;
+            for (int i = rangeOffsets[fromRange]; i < rangeOffsets[toRange]; i++) {
+                E e = a[order[i]];
+                int hashCode = hashCodes[order[i]];
+                int modHashCode = modHashCode(hashCode);
+                IdRef<E> idRef = elements[modHashCode];
+                if (idRef.add(e, hashCode)) {
+                    treeifyIfNeeded(idRef, modHashCode, elements);
+                    contentHashCode += mix(hashCode);
+                    added++;
+                }
+            }
+            return added;
+        }
+    }
+
+    private static final class IdRefSpliterator<E extends Identifiable> implements Spliterator<E> {
+
+        private final IdRef<E>[] elements;
+        private int index;
+        private int fence;
+        private long estimatedSize;
+        private boolean sized;
+        private IdRef<E> current;
+
+        private IdRefSpliterator(IdRef<E>[] elements, int index, int fence, long estimatedSize, boolean sized) {
+            this.elements = elements;
+            this.index = index;
+            this.fence = fence;
+            this.estimatedSize = estimatedSize;
+            this.sized = sized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            while (current == null || current.next == null) {
+                if (index >= fence) {
+                    return false;
+                }
+                current = elements[index++];
+            }
+            E e = current.e;
+            current = current.next;
+            action.accept(e);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            IdRef<E> idRef = current;
+            int i = index;
+            current = null;
+            index = fence;
+            while (true) {
+                for (; idRef != null && idRef.next != null; idRef = idRef.next) {
+                    action.accept(idRef.e);
+                }
+                if (i >= fence) {
+                    return;
+                }
+                idRef = elements[i++];
+            }
+        }
+
+        // a bucket being traversed is never handed over, buckets from index on are not started yet, so while one is being
+        // traversed, the upper half of them is handed over and the lower half stays with it
+        @Override
+        public Spliterator<E> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (index >= middle) {
+                return null;
+            }
+            sized = false;
+            if (current != null) {
+                IdRefSpliterator<E> suffix = new IdRefSpliterator<>(elements, middle, fence, estimatedSize >>>= 1, false);
+                fence = middle;
+                return suffix;
+            }
+            IdRefSpliterator<E> prefix = new IdRefSpliterator<>(elements, index, middle, estimatedSize >>>= 1, false);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
     // package private access for test purposes
     static class IdRef<E extends Identifiable> {
 
@@ -463,6 +1222,14 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
         private IdRef() {
         }
 
+        // turns the head of a bucket back into the sentinel of an empty bucket
+        private void reset() {
+            size = 0;
+            e = null;
+            next = null;
+            hashCode = 0;
+        }
+
         boolean add(E e, int hashCode) {
             if (checkFirst(e) && (setUpIfEmpty(e, hashCode) || setUpAtTheBegginingIfNeeded(e, hashCode) || skipLowerHashCodesAndProceedWithAdding(e, hashCode))) {
                 size++;
@@ -471,8 +1238,9 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
             return false;
         }
 
+        // elements are identified by their ids, so an element with an already present id is not added even if it is not equal
         private boolean checkFirst(E e) {
-            return !e.equals(this.e);
+            return this.e == null || !this.e.getId().equals(e.getId());
         }
 
         private boolean setUpIfEmpty(E e, int hashCode) {
@@ -535,18 +1303,21 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
                 setUpInTheMiddle(current, e, hashCode);
                 return true;
             }
-            if (current.e.equals(e)) {
+            if (current.e.getId().equals(e.getId())) {
                 return false;
             }
             return null;
         }
 
+        // current holds a greater hash code, so its content is moved to the new node linked right after it
         private void setUpInTheMiddle(IdRef<E> current, E e, int hashCode) {
             IdRef<E> idRef = new IdRef<>();
-            idRef.e = e;
+            idRef.e = current.e;
             idRef.next = current.next;
-            idRef.hashCode = hashCode;
+            idRef.hashCode = current.hashCode;
+            current.e = e;
             current.next = idRef;
+            current.hashCode = hashCode;
         }
 
         E get(Object id, int hashCode) {
@@ -614,6 +1385,12 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
             return current;
         }
 
+        // removes the element held by node of this bucket, returns the node holding the element which followed it in the chain
+        IdRef<E> removeElementOf(IdRef<E> node) {
+            getRemovedAndAdjust(node);
+            return node;
+        }
+
         private E getRemovedAndAdjust(IdRef<E> current) {
             IdRef<E> next = current.next;
             E e = current.e;
@@ -649,281 +1426,322 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
     }
 
     // package private access for test purposes
+    // the first element is kept in the bucket head itself and the others in an AVL tree ordered by hash code, then by the class
+    // of the id and then by id, when the ids are mutually comparable, so that colliding comparable ids, e.g. strings, are still
+    // found in logarithmic time, other ids with equal hash codes and class may end up on both sides of a node after rotations,
+    // so both subtrees are searched for them,
+    // all the elements are linked by next in no particular order, so that the bucket can be traversed like any other one
     static final class TreeIdRef<E extends Identifiable> extends IdRef<E> {
 
-        private TreeIdRef<E> left;
-        private TreeIdRef<E> right;
-
-        private IdRef<E> block = new IdRef<>();
-
+        private static final ClassValue<Boolean> SELF_COMPARABLE = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return isSelfComparable(type);
+            }
+        };
 
-        private int nodesCount;
+        // package private access for test purposes
+        TreeNode<E> root;
+        private TreeNode<E> removed;
 
         private TreeIdRef() {
         }
 
         @Override
         boolean add(E e, int hashCode) {
-            if (addByHashCode(this, null, e, hashCode, 0)) {
+            if (this.e == null) {
+                this.e = e;
+                this.hashCode = hashCode;
+                if (next == null) {
+                    next = new IdRef<>();
+                }
                 size++;
                 return true;
             }
-            return false;
-        }
-
-        private boolean addByHashCode(TreeIdRef<E> current, TreeIdRef<E> parent, E e, int hashCode, int consecutiveNodesCount) {
-            if (hashCode == current.hashCode) {
-                return handleEqualHashCodes(current, parent, e, hashCode, consecutiveNodesCount);
-            } else if (hashCode < current.hashCode) {
-                return checkLeft(current, e, hashCode, consecutiveNodesCount) || addByHashCode(current.left, current, e, hashCode, consecutiveNodesCount + 1);
-            } else {
-                return checkRight(current, e, hashCode, consecutiveNodesCount) || addByHashCode(current.right, current, e, hashCode, consecutiveNodesCount + 1);
-            }
-        }
-
-        private boolean handleEqualHashCodes(TreeIdRef<E> current, TreeIdRef<E> parent, E e, int hashCode, int consecutiveNodesCount) {
-            return !checkFirst(current, e) && (handleNull(current, parent, e, consecutiveNodesCount) || handleBlock(current, e, hashCode));
-        }
-
-        private boolean checkFirst(TreeIdRef<E> current, E e) {
-            return e.equals(current.e);
-        }
-
-        private boolean handleNull(TreeIdRef<E> current, TreeIdRef<E> parent, E e, int consecutiveNodesCount) {
-            if (current.e == null) {
-                current.e = e;
-                parent.next = current;
-                rebuildTreeIdRefIfNeeded(consecutiveNodesCount);
-                return true;
-            }
-            return false;
-        }
-
-        private boolean handleBlock(TreeIdRef<E> current, E e, int hashCode) {
-            current.next = current.block;
-            return current.block.add(e, hashCode);
-        }
-
-        private boolean checkLeft(TreeIdRef<E> current, E e, int hashCode, int consecutiveNodesCount) {
-            if (current.left == null) {
-                current.left = createLinkedTreeIdRef(current);
-                current.left.e = e;
-                current.left.hashCode = hashCode;
-                rebuildTreeIdRefIfNeeded(consecutiveNodesCount);
-                return true;
-            }
-            return false;
-        }
-
-        private boolean checkRight(TreeIdRef<E> current, E e, int hashCode, int consecutiveNodesCount) {
-            if (current.right == null) {
-                current.right = createLinkedTreeIdRef(current);
-                current.right.e = e;
-                current.right.hashCode = hashCode;
-                rebuildTreeIdRefIfNeeded(consecutiveNodesCount);
-                return true;
+            Object id = e.getId();
+            if (this.e.getId().equals(id) || find(root, id, hashCode) != null) {
+                return false;
             }
-            return false;
-        }
-
-        private TreeIdRef<E> createLinkedTreeIdRef(TreeIdRef<E> parent) {
-            TreeIdRef<E> treeIdRef = new TreeIdRef<>();
-            IdRef<E> parentNext = parent.next;
-            parent.next = treeIdRef;
-            treeIdRef.next = parentNext;
-            return treeIdRef;
+            TreeNode<E> treeNode = new TreeNode<>(e, hashCode);
+            linkAfterHead(treeNode);
+            root = insert(root, treeNode);
+            size++;
+            return true;
         }
 
         @Override
         E get(Object id, int hashCode) {
-            TreeIdRef<E> treeIdRef = findByHashCode(this, hashCode);
-            if (treeIdRef == null) {
-                return null;
-            }
-            E e = treeIdRef.e;
             if (e == null || e.getId().equals(id)) {
                 return e;
             }
-            return treeIdRef.block.get(id, hashCode);
-        }
-
-        private TreeIdRef<E> findByHashCode(TreeIdRef<E> current, int hashCode) {
-            if (hashCode == current.hashCode) {
-                return current;
-            } else {
-                if (hashCode < current.hashCode) {
-                    current = current.left;
-                } else {
-                    current = current.right;
-                }
-                if (current == null) {
-                    return null;
-                }
-            }
-            return findByHashCode(current, hashCode);
+            TreeNode<E> treeNode = find(root, id, hashCode);
+            return treeNode == null ? null : treeNode.e;
         }
 
         @Override
         E removeId(Object id, int hashCode) {
-            TreeIdRef<E> treeIdRef = findByHashCode(this, hashCode);
-            if (treeIdRef == null) {
-                return null;
-            }
-            E e = treeIdRef.e;
             if (e == null) {
                 return null;
             }
-            IdRef<E> block = treeIdRef.block;
+            E result;
             if (e.getId().equals(id)) {
-                if (block.size == 0) {
-                    treeIdRef.e = null;
-                } else {
-                    treeIdRef.e = block.removeId(block.e.getId(), hashCode);
+                result = e;
+                replaceHeadWithNext();
+            } else {
+                root = remove(root, id, hashCode);
+                if (removed == null) {
+                    return null;
                 }
-                size--;
-                return e;
+                result = removed.e;
+                unlink(removed);
+                removed = null;
             }
-            return null;
+            size--;
+            return result;
         }
 
-
-        private void rebuildTreeIdRefIfNeeded(int consecutiveNodesCount) {
-            nodesCount++;
-            if ((28 - Integer.numberOfLeadingZeros(nodesCount) + ID_REF_TREEIFY_THRESHOLD < consecutiveNodesCount)) {
-                rebuildTreeIdRef();
+        @Override
+        IdRef<E> removeElementOf(IdRef<E> node) {
+            size--;
+            if (node == this) {
+                replaceHeadWithNext();
+                return this;
+            }
+            TreeNode<E> treeNode = (TreeNode<E>) node;
+            root = remove(root, treeNode.e.getId(), treeNode.hashCode);
+            removed = null;
+            IdRef<E> following = treeNode.next;
+            unlink(treeNode);
+            return following;
+        }
+
+        // the element following the head in the chain takes its place, so that an iterator standing at the head continues with it
+        private void replaceHeadWithNext() {
+            if (!(next instanceof TreeNode)) {
+                e = null;
+                hashCode = 0;
+                next = null;
+                return;
             }
+            TreeNode<E> treeNode = (TreeNode<E>) next;
+            root = remove(root, treeNode.e.getId(), treeNode.hashCode);
+            removed = null;
+            unlink(treeNode);
+            e = treeNode.e;
+            hashCode = treeNode.hashCode;
+        }
+
+        private void linkAfterHead(TreeNode<E> treeNode) {
+            treeNode.previous = this;
+            treeNode.next = next;
+            if (next instanceof TreeNode) {
+                ((TreeNode<E>) next).previous = treeNode;
+            }
+            next = treeNode;
         }
 
-        private void rebuildTreeIdRef() {
-            TreeIdRef<E>[] temporarySortedTreeIdRefs = createTemporarySortedTreeIdRefs();
-            TreeIdRef<E> rebuilt = rebuildFromSorted(temporarySortedTreeIdRefs);
-            e = rebuilt.e;
-            hashCode = rebuilt.hashCode;
-            block = rebuilt.block;
-            next = rebuilt.next;
-            left = rebuilt.left;
-            right = rebuilt.right;
+        private void unlink(TreeNode<E> treeNode) {
+            treeNode.previous.next = treeNode.next;
+            if (treeNode.next instanceof TreeNode) {
+                ((TreeNode<E>) treeNode.next).previous = treeNode.previous;
+            }
+            treeNode.previous = null;
+            treeNode.next = null;
         }
 
-        @SuppressWarnings("unchecked")
-        private TreeIdRef<E>[] createTemporarySortedTreeIdRefs() {
-            TreeIdRef<E>[] temporarySortedTreeIdRefs = new TreeIdRef[nodesCount];
-            sortStartingFromLeftmost(temporarySortedTreeIdRefs, this.left, this, 0);
-            return temporarySortedTreeIdRefs;
+        private TreeNode<E> find(TreeNode<E> treeNode, Object id, int hashCode) {
+            while (treeNode != null) {
+                if (hashCode < treeNode.hashCode) {
+                    treeNode = treeNode.left;
+                } else if (hashCode > treeNode.hashCode) {
+                    treeNode = treeNode.right;
+                } else {
+                    Object treeNodeId = treeNode.e.getId();
+                    if (treeNodeId.equals(id)) {
+                        return treeNode;
+                    }
+                    int direction = compareIds(id, treeNodeId);
+                    if (direction < 0) {
+                        treeNode = treeNode.left;
+                    } else if (direction > 0) {
+                        treeNode = treeNode.right;
+                    } else {
+                        TreeNode<E> found = find(treeNode.left, id, hashCode);
+                        if (found != null) {
+                            return found;
+                        }
+                        treeNode = treeNode.right;
+                    }
+                }
+            }
+            return null;
         }
 
-        private int sortStartingFromLeftmost(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> current, TreeIdRef<E> parent, int i) {
-            i = sortForCurrent(temporarySortedTreeIdRefs, current, i);
-            i = sortForParent(temporarySortedTreeIdRefs, current, parent, i);
-            return i;
+        private TreeNode<E> insert(TreeNode<E> treeNode, TreeNode<E> inserted) {
+            if (treeNode == null) {
+                return inserted;
+            }
+            if (inserted.hashCode < treeNode.hashCode || (inserted.hashCode == treeNode.hashCode
+                    && compareIds(inserted.e.getId(), treeNode.e.getId()) < 0)) {
+                treeNode.left = insert(treeNode.left, inserted);
+            } else {
+                treeNode.right = insert(treeNode.right, inserted);
+            }
+            return balance(treeNode);
         }
 
-        private int sortForParent(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> current, TreeIdRef<E> parent, int i) {
-            if (parent.right != current) {
-                if (parent.e != null) {
-                    temporarySortedTreeIdRefs[i++] = parent;
+        // the removed node is kept in the removed field
+        private TreeNode<E> remove(TreeNode<E> treeNode, Object id, int hashCode) {
+            if (treeNode == null) {
+                return null;
+            }
+            if (hashCode < treeNode.hashCode) {
+                treeNode.left = remove(treeNode.left, id, hashCode);
+            } else if (hashCode > treeNode.hashCode) {
+                treeNode.right = remove(treeNode.right, id, hashCode);
+            } else {
+                Object treeNodeId = treeNode.e.getId();
+                if (treeNodeId.equals(id)) {
+                    removed = treeNode;
+                    return removeNode(treeNode);
                 }
-                if (parent.right != null) {
-                    i = sortForCurrent(temporarySortedTreeIdRefs, parent.right, i);
+                int direction = compareIds(id, treeNodeId);
+                if (direction < 0) {
+                    treeNode.left = remove(treeNode.left, id, hashCode);
+                } else if (direction > 0) {
+                    treeNode.right = remove(treeNode.right, id, hashCode);
+                } else {
+                    treeNode.left = remove(treeNode.left, id, hashCode);
+                    if (removed == null) {
+                        treeNode.right = remove(treeNode.right, id, hashCode);
+                    }
                 }
             }
-            return i;
+            return balance(treeNode);
+        }
+
+        // ids of different classes are ordered by class, as in java.util.HashMap.tieBreakOrder, so that the order stays
+        // consistent when a bucket mixes comparable ids with ids of other classes, 0 when the ids are of the same class and not
+        // comparable, then both subtrees have to be searched, package private access for test purposes
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static int compareIds(Object id, Object otherId) {
+            Class<?> idClass = id.getClass();
+            Class<?> otherIdClass = otherId.getClass();
+            if (idClass != otherIdClass) {
+                return compareClasses(idClass, otherIdClass);
+            }
+            if (!(id instanceof Comparable) || !SELF_COMPARABLE.get(idClass)) {
+                return 0;
+            }
+            return ((Comparable) id).compareTo(otherId);
         }
 
-        private int sortForCurrent(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> current, int i) {
-            if (current.left != null) {
-                i = sortStartingFromLeftmost(temporarySortedTreeIdRefs, current.left, current, i);
-            } else {
-                if (current.e != null) {
-                    temporarySortedTreeIdRefs[i++] = current;
-                }
-                if (current.right != null) {
-                    i = sortStartingFromLeftmost(temporarySortedTreeIdRefs, current.right, current, i);
-                }
+        // classes of the same name loaded by different class loaders are told apart by their identity hash codes
+        private static int compareClasses(Class<?> idClass, Class<?> otherIdClass) {
+            int direction = idClass.getName().compareTo(otherIdClass.getName());
+            if (direction != 0) {
+                return direction;
             }
-            return i;
+            return Integer.compare(System.identityHashCode(idClass), System.identityHashCode(otherIdClass));
         }
 
-        private TreeIdRef<E> rebuildFromSorted(TreeIdRef<E>[] temporarySortedTreeIdRefs) {
-            int index = temporarySortedTreeIdRefs.length >> 1;
-            TreeIdRef<E> midTreeIdRef = temporarySortedTreeIdRefs[index].createStandaloneCopy();
-            FlexSet<IntegerIdentifiable> usedIndices = new FlexSet<>(nodesCount << 1);
-            usedIndices.add(new IntegerIdentifiable(index));
-            midTreeIdRef.nodesCount = rebuildForBoth(temporarySortedTreeIdRefs, midTreeIdRef, 0, index, temporarySortedTreeIdRefs.length, usedIndices);
-            return midTreeIdRef;
+        // only classes declaring Comparable of themselves are trusted, as in java.util.HashMap
+        private static boolean isSelfComparable(Class<?> type) {
+            for (Type genericInterface : type.getGenericInterfaces()) {
+                if (genericInterface instanceof ParameterizedType) {
+                    ParameterizedType parameterizedType = (ParameterizedType) genericInterface;
+                    Type[] typeArguments = parameterizedType.getActualTypeArguments();
+                    if (parameterizedType.getRawType() == Comparable.class && typeArguments.length == 1 && typeArguments[0] == type) {
+                        return true;
+                    }
+                }
+            }
+            return false;
         }
 
-        private int rebuildForBoth(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> midTreeIdRef, int from, int index, int to, FlexSet<IntegerIdentifiable> usedIndices) {
-            int nodesCount = rebuildForLeft(temporarySortedTreeIdRefs, midTreeIdRef, from, index, usedIndices);
-            nodesCount += rebuildForRight(temporarySortedTreeIdRefs, midTreeIdRef, index, to, usedIndices);
-            return nodesCount;
+        // a node with two children is replaced by its successor node, elements never move between nodes
+        private TreeNode<E> removeNode(TreeNode<E> treeNode) {
+            if (treeNode.left == null) {
+                return treeNode.right;
+            }
+            if (treeNode.right == null) {
+                return treeNode.left;
+            }
+            TreeNode<E> successor = treeNode.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeLeftmost(treeNode.right);
+            successor.left = treeNode.left;
+            treeNode.left = null;
+            treeNode.right = null;
+            return balance(successor);
         }
 
-        private int rebuildForLeft(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> midTreeIdRef, int from, int to, FlexSet<IntegerIdentifiable> usedIndices) {
-            midTreeIdRef.next = null;
-            int diff = to - from;
-            if (diff != 0) {
-                int index = (diff >> 1) + from;
-                if (usedIndices.add(new IntegerIdentifiable(index))) {
-                    TreeIdRef<E> treeIdRef = temporarySortedTreeIdRefs[index].createStandaloneCopy();
-                    midTreeIdRef.left = treeIdRef;
-                    midTreeIdRef.next = treeIdRef;
-                    return rebuildForBoth(temporarySortedTreeIdRefs, midTreeIdRef.left, from, index, to, usedIndices);
-                }
+        private TreeNode<E> removeLeftmost(TreeNode<E> treeNode) {
+            if (treeNode.left == null) {
+                return treeNode.right;
             }
-            midTreeIdRef.left = null;
-            return 0;
+            treeNode.left = removeLeftmost(treeNode.left);
+            return balance(treeNode);
         }
 
-        private int rebuildForRight(TreeIdRef<E>[] temporarySortedTreeIdRefs, TreeIdRef<E> midTreeIdRef, int from, int to, FlexSet<IntegerIdentifiable> usedIndices) {
-            int diff = to - from;
-            if (diff != 1) {
-                int index = (diff >> 1) + from;
-                if (usedIndices.add(new IntegerIdentifiable(index))) {
-                    TreeIdRef<E> treeIdRef = temporarySortedTreeIdRefs[index].createStandaloneCopy();
-                    midTreeIdRef.right = treeIdRef;
-                    getLast(midTreeIdRef).next = treeIdRef;
-                    return rebuildForBoth(temporarySortedTreeIdRefs, midTreeIdRef.right, from, index, to, usedIndices);
+        private TreeNode<E> balance(TreeNode<E> treeNode) {
+            int balanceFactor = height(treeNode.left) - height(treeNode.right);
+            if (balanceFactor > 1) {
+                if (height(treeNode.left.left) < height(treeNode.left.right)) {
+                    treeNode.left = rotateLeft(treeNode.left);
+                }
+                return rotateRight(treeNode);
+            }
+            if (balanceFactor < -1) {
+                if (height(treeNode.right.right) < height(treeNode.right.left)) {
+                    treeNode.right = rotateRight(treeNode.right);
                 }
+                return rotateLeft(treeNode);
             }
-            midTreeIdRef.right = null;
-            return 0;
+            updateHeight(treeNode);
+            return treeNode;
         }
 
-        private IdRef<E> getLast(IdRef<E> midTreeIdRef) {
-            while (midTreeIdRef.next != null) {
-                midTreeIdRef = midTreeIdRef.next;
-            }
-            return midTreeIdRef;
+        private TreeNode<E> rotateRight(TreeNode<E> treeNode) {
+            TreeNode<E> left = treeNode.left;
+            treeNode.left = left.right;
+            left.right = treeNode;
+            updateHeight(treeNode);
+            updateHeight(left);
+            return left;
         }
 
-        private TreeIdRef<E> createStandaloneCopy() {
-            TreeIdRef<E> treeIdRef = new TreeIdRef<>();
-            treeIdRef.e = e;
-            treeIdRef.hashCode = hashCode;
-            treeIdRef.block = block;
-            return treeIdRef;
+        private TreeNode<E> rotateLeft(TreeNode<E> treeNode) {
+            TreeNode<E> right = treeNode.right;
+            treeNode.right = right.left;
+            right.left = treeNode;
+            updateHeight(treeNode);
+            updateHeight(right);
+            return right;
+        }
+
+        private void updateHeight(TreeNode<E> treeNode) {
+            treeNode.height = Math.max(height(treeNode.left), height(treeNode.right)) + 1;
+        }
+
+        // package private access for test purposes
+        static int height(TreeNode<?> treeNode) {
+            return treeNode == null ? 0 : treeNode.height;
         }
 
         private static <E extends Identifiable> TreeIdRef<E> fromIdRef(IdRef<E> idRef) {
             TreeIdRef<E> treeIdRef = new TreeIdRef<>();
-            treeIdRef.e = idRef.next.next.next.e;
-            treeIdRef.hashCode = idRef.next.next.next.hashCode;
-            treeIdRef.size = 1;
-            treeIdRef.nodesCount = 1;
-            fromIdRefHelp(treeIdRef, idRef.next);
-            fromIdRefHelp(treeIdRef, idRef.next.next.next.next.next);
-            fromIdRefHelp(treeIdRef, idRef);
-            fromIdRefHelp(treeIdRef, idRef.next.next);
-            fromIdRefHelp(treeIdRef, idRef.next.next.next.next);
-            fromIdRefHelp(treeIdRef, idRef.next.next.next.next.next.next);
+            while (idRef != null) {
+                if (idRef.e != null) {
+                    treeIdRef.add(idRef.e, idRef.hashCode);
+                }
+                idRef = idRef.next;
+            }
             return treeIdRef;
         }
 
-        private static <E extends Identifiable> void fromIdRefHelp(TreeIdRef<E> treeIdRef, IdRef<E> idRef) {
-            treeIdRef.add(idRef.e, idRef.hashCode);
-        }
-
         private static <E extends Identifiable> IdRef<E> toIdRef(IdRef<E> treeIdRef) {
             IdRef<E> idRef = new IdRef<>();
             while (treeIdRef != null) {
@@ -937,29 +1755,18 @@ public class FlexSet<E extends Identifiable> implements IdSet<E>, Identifiable {
 
     }
 
-    private static class IntegerIdentifiable implements Identifiable {
-
-        private final int integer;
-
-        private IntegerIdentifiable(int integer) {
-            this.integer = integer;
-        }
-
-        @Override
-        public Object getId() {
-            return integer;
-        }
+    // package private access for test purposes
+    static final class TreeNode<E extends Identifiable> extends IdRef<E> {
 
-        @Override
-        public boolean equals(Object o) {
-            return o != null && integer == ((IntegerIdentifiable) o).integer;
-        }
+        TreeNode<E> left;
+        TreeNode<E> right;
+        int height = 1;
+        private IdRef<E> previous;
 
-        @Override
-        public int hashCode() {
-            return integer;
+        private TreeNode(E e, int hashCode) {
+            this.e = e;
+            this.hashCode = hashCode;
         }
     }
 
-
 }
@@ -0,0 +1,41 @@
+package idSet;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// spreads id hash codes before they are reduced to a bucket index, the hash codes themselves are stored and compared unchanged,
+// so that ids with equal hash codes still collide whatever the strategy
+@FunctionalInterface
+public interface HashStrategy {
+
+    // folds the upper half onto the lower one, cheap, but ids differing only in a few high bits may still cluster
+    HashStrategy DEFAULT = hashCode -> hashCode ^ (hashCode >>> 16);
+
+    // murmur3 finalizer, every input bit affects every output bit
+    HashStrategy MURMUR = HashStrategy::fmix32;
+
+    // fxhash style multiplication by the golden ratio, the well mixed upper half is folded onto the bucket index bits
+    HashStrategy FX = hashCode -> {
+        int product = hashCode * 0x9e3779b9;
+        return product ^ (product >>> 16);
+    };
+
+    int spread(int hashCode);
+
+    // bucket indices of a set built with a random seed cannot be predicted from the ids alone
+    static HashStrategy seeded() {
+        return seeded(ThreadLocalRandom.current().nextInt());
+    }
+
+    static HashStrategy seeded(int seed) {
+        return hashCode -> fmix32(hashCode ^ seed);
+    }
+
+    static int fmix32(int hashCode) {
+        hashCode ^= hashCode >>> 16;
+        hashCode *= 0x85ebca6b;
+        hashCode ^= hashCode >>> 13;
+        hashCode *= 0xc2b2ae35;
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+}
@@ -1,7 +1,10 @@
 package idSet;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public interface IdSet<E extends Identifiable> extends Set<E> {
 
@@ -11,6 +14,12 @@ public interface IdSet<E extends Identifiable> extends Set<E> {
 
     E get(Object id);
 
+    // out[i] is set to the element of ids[i] or null, returns the number of elements found
+    int getAll(Object[] ids, E[] out);
+
+    // the element of the i-th id or null at the i-th position
+    List<E> getAll(Collection<?> ids);
+
     E removeId(Object o);
 
     boolean containsAllIds(Collection<?> c);
@@ -23,6 +32,10 @@ public interface IdSet<E extends Identifiable> extends Set<E> {
 
     Set<E> entrySet();
 
+    void forEachId(Consumer<Object> action);
+
+    // the index is the position of the element in iteration order
+    void forEachIndexed(ObjIntConsumer<? super E> action);
 
 
 }
@@ -0,0 +1,270 @@
+package idSet;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+// read only snapshot, the elements are kept in one flat array grouped by bucket and sorted by hash code within a bucket,
+// bucket i occupies the range from bucketOffsets[i] inclusive to bucketOffsets[i + 1] exclusive, hash codes are spread with
+// the idSet.HashStrategy of the source set, so that a frozen set keeps the bucket distribution it was tuned for
+public final class ImmutableIdSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // package private access for test purposes
+    final Object[] elements;
+    // package private access for test purposes
+    final int[] hashCodes;
+    // package private access for test purposes
+    final int[] bucketOffsets;
+    private final int modCapacity;
+    // package private access for test purposes
+    final HashStrategy hashStrategy;
+
+    private ImmutableIdSet(Collection<? extends E> c, HashStrategy hashStrategy) {
+        this.hashStrategy = hashStrategy;
+        int size = c.size();
+        int capacity = calculateCapacity(size);
+        modCapacity = capacity - 1;
+        elements = new Object[size];
+        hashCodes = new int[size];
+        bucketOffsets = new int[capacity + 1];
+        Object[] source = new Object[size];
+        int[] sourceHashCodes = new int[size];
+        int i = 0;
+        for (E e : c) {
+            int hashCode = e.getId().hashCode();
+            source[i] = e;
+            sourceHashCodes[i] = hashCode;
+            bucketOffsets[modHashCode(hashCode) + 1]++;
+            i++;
+        }
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            bucketOffsets[bucket + 1] += bucketOffsets[bucket];
+        }
+        int[] positions = Arrays.copyOf(bucketOffsets, capacity);
+        for (i = 0; i < size; i++) {
+            int bucket = modHashCode(sourceHashCodes[i]);
+            insertSorted(source[i], sourceHashCodes[i], bucketOffsets[bucket], positions[bucket]++);
+        }
+    }
+
+    // buckets are short, so insertion sort is enough
+    private void insertSorted(Object element, int hashCode, int from, int to) {
+        int index = to;
+        while (index > from && hashCodes[index - 1] > hashCode) {
+            elements[index] = elements[index - 1];
+            hashCodes[index] = hashCodes[index - 1];
+            index--;
+        }
+        elements[index] = element;
+        hashCodes[index] = hashCode;
+    }
+
+    // one bucket per element on average
+    private static int calculateCapacity(int size) {
+        if (size >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Math.max(Integer.highestOneBit(Math.max(size, 1) * 2 - 1), 1);
+    }
+
+    // the hash strategy of an idSet.FlexSet or idSet.ImmutableIdSet is carried over, any other collection gets the default one
+    public static <T extends Identifiable> ImmutableIdSet<T> copyOf(Collection<? extends T> c) {
+        Objects.requireNonNull(c);
+        if (c instanceof ImmutableIdSet) {
+            return copyOf(c, ((ImmutableIdSet<?>) c).hashStrategy);
+        }
+        if (c instanceof FlexSet) {
+            return copyOf(c, ((FlexSet<?>) c).hashStrategy);
+        }
+        return copyOf(c, HashStrategy.DEFAULT);
+    }
+
+    // the elements of an idSet.IdSet have distinct ids already, any other collection is deduplicated first
+    public static <T extends Identifiable> ImmutableIdSet<T> copyOf(Collection<? extends T> c, HashStrategy hashStrategy) {
+        Objects.requireNonNull(c);
+        Objects.requireNonNull(hashStrategy);
+        if (c instanceof ImmutableIdSet && ((ImmutableIdSet<?>) c).hashStrategy == hashStrategy) {
+            @SuppressWarnings("unchecked")
+            ImmutableIdSet<T> immutableIdSet = (ImmutableIdSet<T>) c;
+            return immutableIdSet;
+        }
+        if (c instanceof IdSet) {
+            return new ImmutableIdSet<>(c, hashStrategy);
+        }
+        Map<Object, T> distinctElements = new HashMap<>();
+        for (T e : c) {
+            distinctElements.putIfAbsent(e.getId(), e);
+        }
+        return new ImmutableIdSet<>(distinctElements.values(), hashStrategy);
+    }
+
+    @SafeVarargs
+    public static <T extends Identifiable> ImmutableIdSet<T> of(T... a) {
+        return copyOf(Arrays.asList(a));
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E get(Object id) {
+        int hashCode = id.hashCode();
+        int bucket = modHashCode(hashCode);
+        for (int i = bucketOffsets[bucket], end = bucketOffsets[bucket + 1]; i < end; i++) {
+            int elementHashCode = hashCodes[i];
+            if (elementHashCode == hashCode) {
+                if (((E) elements[i]).getId().equals(id)) {
+                    return (E) elements[i];
+                }
+            } else if (elementHashCode > hashCode) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < elements.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[index++];
+            }
+
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        for (Object element : elements) {
+            action.accept((E) element);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEachIndexed(ObjIntConsumer<? super E> action) {
+        Objects.requireNonNull(action);
+        for (int i = 0; i < elements.length; i++) {
+            action.accept((E) elements[i], i);
+        }
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(elements, Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(elements, elements.length);
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public E removeId(Object id) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeAllIds(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean retainAllIds(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public void clear() {
+        throw unsupportedOperation();
+    }
+
+    private UnsupportedOperationException unsupportedOperation() {
+        return new UnsupportedOperationException("idSet.ImmutableIdSet cannot be modified.");
+    }
+
+    private int modHashCode(int hashCode) {
+        return hashStrategy.spread(hashCode) & modCapacity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImmutableIdSet<?> immutableIdSet = (ImmutableIdSet<?>) o;
+        return size() == immutableIdSet.size() &&
+                containsAll(immutableIdSet);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCodesSum = 0;
+        for (int hashCode : hashCodes) {
+            hashCodesSum += hashCode;
+        }
+        return Objects.hash(size(), hashCodesSum);
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "idSet.ImmutableIdSet{" +
+                "elements=" + Arrays.toString(elements) +
+                '}';
+    }
+
+}
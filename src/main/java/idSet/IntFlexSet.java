@@ -0,0 +1,109 @@
+package idSet;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+// ids are kept unboxed in a flat array parallel to the elements, so primitive lookups neither allocate nor call equals
+public class IntFlexSet<E extends IntIdentifiable> extends AbstractOpenAddressingIdSet<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // package private access for test purposes
+    int[] ids;
+
+    private IntFlexSet(int initialCapacity) {
+        super(initialCapacity);
+        ids = new int[capacity];
+    }
+
+    public static <T extends IntIdentifiable> IntFlexSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends IntIdentifiable> IntFlexSet<T> instance(int initialCapacity) {
+        return new IntFlexSet<>(initialCapacity);
+    }
+
+    @SafeVarargs
+    public static <T extends IntIdentifiable> IntFlexSet<T> fromArray(T... a) {
+        IntFlexSet<T> flexSet = instance(a.length);
+        Collections.addAll(flexSet, a);
+        return flexSet;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof IntIdentifiable) {
+            return containsInt(((IntIdentifiable) o).getIntId());
+        }
+        return super.contains(o);
+    }
+
+    public boolean containsInt(int id) {
+        return indexOf(id, null) >= 0;
+    }
+
+    @Override
+    public E get(Object id) {
+        return id instanceof Integer ? getInt((Integer) id) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E getInt(int id) {
+        int index = indexOf(id, null);
+        return index < 0 ? null : (E) elements[index];
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        return add(e, e.getIntId(), null);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof IntIdentifiable) {
+            return removeInt(((IntIdentifiable) o).getIntId()) != null;
+        }
+        return super.remove(o);
+    }
+
+    @Override
+    public E removeId(Object id) {
+        return id instanceof Integer ? removeInt((Integer) id) : null;
+    }
+
+    public E removeInt(int id) {
+        return removeId(id, null);
+    }
+
+    // sequential ids and multiples of large powers of two are both spread over the whole table
+    @Override
+    int homeIndexOf(long id) {
+        int hashCode = (int) id * 0x9E3779B9;
+        return (hashCode ^ (hashCode >>> 16)) & modCapacity;
+    }
+
+    @Override
+    long keyAt(int index) {
+        return ids[index];
+    }
+
+    @Override
+    void setKey(int index, long key) {
+        ids[index] = (int) key;
+    }
+
+    @Override
+    IntToLongFunction replaceKeys() {
+        int[] previousIds = ids;
+        ids = new int[capacity];
+        return index -> previousIds[index];
+    }
+
+    @Override
+    int keyHashCodeAt(int index) {
+        return ids[index];
+    }
+
+}
@@ -0,0 +1,11 @@
+package idSet;
+
+@FunctionalInterface
+public interface IntIdentifiable extends Identifiable {
+    int getIntId();
+
+    @Override
+    default Integer getId() {
+        return getIntId();
+    }
+}
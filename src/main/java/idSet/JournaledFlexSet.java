@@ -0,0 +1,530 @@
+package idSet;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+// idSet.FlexSet kept in a directory as a snapshot written by idSet.FlexSet.writeTo and a journal of the changes made since,
+// every change is appended to the journal before it is applied, the journal is forced to the disk once per group commit
+// interval, so a crash loses at most the changes of the last interval, 0 forces it on every change,
+// on open the snapshot is read and the journal replayed, a torn or corrupted tail of the journal is cut off,
+// once the journal exceeds the compaction threshold, the set is written into a new snapshot and the journal is emptied,
+// replaying a journal over the snapshot it has been compacted into gives the same set, so a crash in between loses nothing,
+// every operation holds one lock, iteration does not, so it must not overlap with changes made by other threads
+public class JournaledFlexSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable, AutoCloseable {
+
+    // package private access for test purposes
+    static final String SNAPSHOT_FILE_NAME = "snapshot";
+    // package private access for test purposes
+    static final String JOURNAL_FILE_NAME = "journal";
+    private static final long DEFAULT_GROUP_COMMIT_INTERVAL_MILLIS = 10;
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 64 << 20;
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    // length and checksum of the payload
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final ElementCodec<E> codec;
+    private final long groupCommitIntervalMillis;
+    private final long compactionThreshold;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PayloadBuffer payload = new PayloadBuffer();
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+    private final CRC32 checksum = new CRC32();
+
+    // package private access for test purposes
+    FlexSet<E> flexSet;
+    // package private access for test purposes
+    FileChannel journal;
+    private DataOutputStream journalOut;
+    // package private access for test purposes
+    long journalLength;
+    private boolean unflushed;
+    // a failed write or force leaves the end of the journal unknown, so no record is appended after it
+    private IOException journalFailure;
+    private long nextCompactionLength;
+    private IOException compactionFailure;
+    private ScheduledExecutorService groupCommitExecutor;
+    private ScheduledFuture<?> groupCommit;
+
+    private JournaledFlexSet(Builder<E> builder) throws IOException {
+        if (builder.groupCommitIntervalMillis < 0) {
+            throw new IllegalArgumentException("Parameter groupCommitInterval should be greater than or equal 0.");
+        }
+        if (builder.compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Parameter compactionThreshold should be greater than 0.");
+        }
+        directory = builder.directory;
+        codec = builder.codec;
+        groupCommitIntervalMillis = builder.groupCommitIntervalMillis;
+        compactionThreshold = builder.compactionThreshold;
+        nextCompactionLength = compactionThreshold;
+        Files.createDirectories(directory);
+        flexSet = readSnapshot(builder.flexSetBuilder);
+        journal = FileChannel.open(directory.resolve(JOURNAL_FILE_NAME), CREATE, READ, WRITE);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journal)));
+        if (groupCommitIntervalMillis > 0) {
+            groupCommitExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "idSet.JournaledFlexSet group commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            groupCommit = groupCommitExecutor.scheduleWithFixedDelay(this::commitGroup, groupCommitIntervalMillis, groupCommitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static <T extends Identifiable> JournaledFlexSet<T> open(Path directory, ElementCodec<T> codec) throws IOException {
+        return builder(directory, codec).open();
+    }
+
+    public static <T extends Identifiable> Builder<T> builder(Path directory, ElementCodec<T> codec) {
+        return new Builder<>(directory, codec);
+    }
+
+    private FlexSet<E> readSnapshot(FlexSet.Builder flexSetBuilder) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE_NAME);
+        if (!Files.exists(snapshot)) {
+            return flexSetBuilder.build();
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshot))) {
+            return FlexSet.readFrom(in, codec, flexSetBuilder);
+        }
+    }
+
+    // the first pass finds the valid part of the journal and counts additions, so that the set is sized once before
+    // the second pass applies the records
+    private void recover() throws IOException {
+        int[] additions = new int[1];
+        long validLength = replay(record -> {
+            if (record == ADD) {
+                additions[0]++;
+            }
+        }, null);
+        flexSet.ensureCapacity(flexSet.size() + additions[0]);
+        replay(record -> { }, flexSet);
+        journal.truncate(validLength);
+        journal.position(validLength);
+        journalLength = validLength;
+    }
+
+    // returns the length of the journal up to the first incomplete or corrupted record
+    private long replay(IntConsumer consumer, FlexSet<E> target) throws IOException {
+        journal.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(journal)));
+        long length = 0;
+        long journalSize = journal.size();
+        byte[] bytes = new byte[0];
+        CRC32 checksum = new CRC32();
+        while (length + RECORD_HEADER_SIZE <= journalSize) {
+            int payloadLength = in.readInt();
+            int payloadChecksum = in.readInt();
+            if (payloadLength <= 0 || length + RECORD_HEADER_SIZE + payloadLength > journalSize) {
+                break;
+            }
+            if (bytes.length < payloadLength) {
+                bytes = new byte[payloadLength];
+            }
+            in.readFully(bytes, 0, payloadLength);
+            checksum.reset();
+            checksum.update(bytes, 0, payloadLength);
+            if ((int) checksum.getValue() != payloadChecksum) {
+                break;
+            }
+            byte recordType = bytes[0];
+            if (recordType != ADD && recordType != REMOVE && recordType != CLEAR) {
+                break;
+            }
+            consumer.accept(recordType);
+            if (target != null) {
+                apply(target, recordType, new DataInputStream(new ByteArrayInputStream(bytes, 1, payloadLength - 1)));
+            }
+            length += RECORD_HEADER_SIZE + payloadLength;
+        }
+        return length;
+    }
+
+    private void apply(FlexSet<E> target, byte recordType, DataInput in) throws IOException {
+        switch (recordType) {
+            case ADD:
+                target.add(codec.read(in));
+                break;
+            case REMOVE:
+                target.removeId(codec.read(in).getId());
+                break;
+            default:
+                target.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            ensureOpen();
+            return flexSet.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E get(Object id) {
+        lock.lock();
+        try {
+            ensureOpen();
+            return flexSet.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        lock.lock();
+        try {
+            ensureOpen();
+            if (flexSet.containsId(e.getId())) {
+                return false;
+            }
+            append(ADD, e);
+            flexSet.add(e);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E removeId(Object id) {
+        lock.lock();
+        try {
+            ensureOpen();
+            E e = flexSet.get(id);
+            if (e == null) {
+                return null;
+            }
+            append(REMOVE, e);
+            flexSet.removeId(id);
+            compactIfNeeded();
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            ensureOpen();
+            append(CLEAR, null);
+            flexSet.clear();
+            compactIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // removal through the iterator is journaled as well
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator;
+        lock.lock();
+        try {
+            ensureOpen();
+            iterator = flexSet.iterator();
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<E>() {
+            private E lastReturned;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                lastReturned = iterator.next();
+                return lastReturned;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                lock.lock();
+                try {
+                    ensureOpen();
+                    append(REMOVE, lastReturned);
+                    iterator.remove();
+                    lastReturned = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    // the record is buffered, it reaches the disk with the next group commit, it is encoded in memory first, so a failing
+    // codec leaves the journal untouched, a failed write may leave a torn record behind, which is cut off on open
+    private void append(byte recordType, E e) {
+        rethrowJournalFailure();
+        try {
+            payload.reset();
+            payloadOut.writeByte(recordType);
+            if (e != null) {
+                codec.write(e, payloadOut);
+            }
+            payloadOut.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        try {
+            checksum.reset();
+            payload.updateChecksum(checksum);
+            journalOut.writeInt(payload.size());
+            journalOut.writeInt((int) checksum.getValue());
+            payload.writeTo(journalOut);
+            journalLength += RECORD_HEADER_SIZE + payload.size();
+            unflushed = true;
+            if (groupCommitIntervalMillis == 0) {
+                flushAndForce();
+            }
+        } catch (IOException exception) {
+            journalFailure = exception;
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void rethrowJournalFailure() {
+        if (journalFailure != null) {
+            throw new UncheckedIOException("Writing the journal of idSet.JournaledFlexSet failed.", journalFailure);
+        }
+    }
+
+    private void commitGroup() {
+        lock.lock();
+        try {
+            if (journal != null && journalFailure == null) {
+                flushAndForce();
+            }
+        } catch (IOException e) {
+            // kept in journalFailure, rethrown by the next change
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushAndForce() throws IOException {
+        if (unflushed) {
+            try {
+                journalOut.flush();
+                journal.force(false);
+            } catch (IOException e) {
+                journalFailure = e;
+                throw e;
+            }
+            unflushed = false;
+        }
+    }
+
+    // forces the changes made so far to the disk without waiting for the next group commit
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            rethrowJournalFailure();
+            flushAndForce();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the change is journaled already, so a failed compaction does not fail it, the compaction is retried once the journal
+    // has grown by another compactionThreshold bytes and on close
+    private void compactIfNeeded() {
+        if (journalLength > nextCompactionLength) {
+            try {
+                compactLocked();
+            } catch (IOException e) {
+                compactionFailure = e;
+                nextCompactionLength = journalLength + compactionThreshold;
+            }
+        }
+    }
+
+    // writes the set into a new snapshot and empties the journal
+    public void compact() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            compactLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        rethrowJournalFailure();
+        flushAndForce();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE_NAME);
+        Path temporarySnapshot = directory.resolve(SNAPSHOT_FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporarySnapshot, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            flexSet.writeTo(channel, codec);
+            channel.force(true);
+        }
+        Files.move(temporarySnapshot, snapshot, REPLACE_EXISTING, ATOMIC_MOVE);
+        // the journal must not be emptied before the rename is durable, or a crash could lose both
+        MappedIdSet.forceDirectory(directory);
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        unflushed = false;
+        journalLength = 0;
+        nextCompactionLength = compactionThreshold;
+        compactionFailure = null;
+    }
+
+    // the remaining changes are forced to the disk and a failed compaction is retried, if it fails again, the exception is
+    // thrown, but no change is lost, as the journal is left intact, the set cannot be used afterwards
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (journal == null) {
+                return;
+            }
+            if (groupCommitExecutor != null) {
+                groupCommit.cancel(false);
+                groupCommitExecutor.shutdown();
+            }
+            try {
+                if (journalFailure == null) {
+                    flushAndForce();
+                    if (compactionFailure != null) {
+                        compactLocked();
+                    }
+                }
+            } finally {
+                journal.close();
+                journal = null;
+                journalOut = null;
+                flexSet = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (journal == null) {
+            throw new IllegalStateException("idSet.JournaledFlexSet has been closed.");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JournaledFlexSet<?> journaledFlexSet = (JournaledFlexSet<?>) o;
+        return size() == journaledFlexSet.size() &&
+                containsAll(journaledFlexSet);
+    }
+
+    @Override
+    public int hashCode() {
+        lock.lock();
+        try {
+            ensureOpen();
+            return flexSet.hashCode();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "idSet.JournaledFlexSet{" +
+                "directory=" + directory +
+                ", journalLength=" + journalLength +
+                '}';
+    }
+
+    // checksums the written bytes in place instead of copying them
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+
+        private void updateChecksum(CRC32 checksum) {
+            checksum.update(buf, 0, count);
+        }
+    }
+
+    public static final class Builder<T extends Identifiable> {
+
+        private final Path directory;
+        private final ElementCodec<T> codec;
+        private long groupCommitIntervalMillis = DEFAULT_GROUP_COMMIT_INTERVAL_MILLIS;
+        private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        private FlexSet.Builder flexSetBuilder = FlexSet.builder();
+
+        private Builder(Path directory, ElementCodec<T> codec) {
+            this.directory = Objects.requireNonNull(directory);
+            this.codec = Objects.requireNonNull(codec);
+        }
+
+        // changes are forced to the disk together once per interval, 0 forces every change on its own
+        public Builder<T> groupCommitInterval(long groupCommitInterval, TimeUnit unit) {
+            this.groupCommitIntervalMillis = unit.toMillis(groupCommitInterval);
+            return this;
+        }
+
+        // length of the journal in bytes above which it is compacted into a snapshot
+        public Builder<T> compactionThreshold(long compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        // configuration of the set the snapshot and the journal are read into
+        public Builder<T> flexSet(FlexSet.Builder flexSetBuilder) {
+            this.flexSetBuilder = Objects.requireNonNull(flexSetBuilder);
+            return this;
+        }
+
+        public JournaledFlexSet<T> open() throws IOException {
+            return new JournaledFlexSet<>(this);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package idSet;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+// ids are kept unboxed in a flat array parallel to the elements, so primitive lookups neither allocate nor call equals
+public class LongFlexSet<E extends LongIdentifiable> extends AbstractOpenAddressingIdSet<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // package private access for test purposes
+    long[] ids;
+
+    private LongFlexSet(int initialCapacity) {
+        super(initialCapacity);
+        ids = new long[capacity];
+    }
+
+    public static <T extends LongIdentifiable> LongFlexSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends LongIdentifiable> LongFlexSet<T> instance(int initialCapacity) {
+        return new LongFlexSet<>(initialCapacity);
+    }
+
+    @SafeVarargs
+    public static <T extends LongIdentifiable> LongFlexSet<T> fromArray(T... a) {
+        LongFlexSet<T> flexSet = instance(a.length);
+        Collections.addAll(flexSet, a);
+        return flexSet;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof LongIdentifiable) {
+            return containsLong(((LongIdentifiable) o).getLongId());
+        }
+        return super.contains(o);
+    }
+
+    public boolean containsLong(long id) {
+        return indexOf(id, null) >= 0;
+    }
+
+    @Override
+    public E get(Object id) {
+        return id instanceof Long ? getLong((Long) id) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E getLong(long id) {
+        int index = indexOf(id, null);
+        return index < 0 ? null : (E) elements[index];
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        return add(e, e.getLongId(), null);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof LongIdentifiable) {
+            return removeLong(((LongIdentifiable) o).getLongId()) != null;
+        }
+        return super.remove(o);
+    }
+
+    @Override
+    public E removeId(Object id) {
+        return id instanceof Long ? removeLong((Long) id) : null;
+    }
+
+    public E removeLong(long id) {
+        return removeId(id, null);
+    }
+
+    // sequential ids and multiples of large powers of two are both spread over the whole table
+    @Override
+    int homeIndexOf(long id) {
+        long hashCode = id * 0x9E3779B97F4A7C15L;
+        return (int) (hashCode ^ (hashCode >>> 32)) & modCapacity;
+    }
+
+    @Override
+    long keyAt(int index) {
+        return ids[index];
+    }
+
+    @Override
+    void setKey(int index, long key) {
+        ids[index] = key;
+    }
+
+    @Override
+    IntToLongFunction replaceKeys() {
+        long[] previousIds = ids;
+        ids = new long[capacity];
+        return index -> previousIds[index];
+    }
+
+    @Override
+    int keyHashCodeAt(int index) {
+        return Long.hashCode(ids[index]);
+    }
+
+}
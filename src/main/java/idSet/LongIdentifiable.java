@@ -0,0 +1,11 @@
+package idSet;
+
+@FunctionalInterface
+public interface LongIdentifiable extends Identifiable {
+    long getLongId();
+
+    @Override
+    default Long getId() {
+        return getLongId();
+    }
+}
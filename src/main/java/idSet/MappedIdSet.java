@@ -0,0 +1,383 @@
+package idSet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+// read only view of a snapshot file written by idSet.FlexSet.writeSnapshot, the file is mapped into memory, so opening
+// it costs nothing and its pages are shared by all processes mapping it, elements are decoded by the codec on every access,
+// the file consists of a header, the encoded elements and an open addressing table of slots holding the hash code of
+// the id and the offset of the encoded element, an offset 0 stands for an empty slot, the header is validated on open
+// and every offset on access, so that a corrupted file fails with an exception instead of reading out of bounds
+public final class MappedIdSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable, AutoCloseable {
+
+    private static final int MAGIC = 0x49445331;
+    private static final int VERSION = 1;
+    // magic, version, size, capacity, table offset
+    private static final int HEADER_SIZE = 20;
+    private static final int SLOT_SIZE = 8;
+    private static final int WRITE_BUFFER_SLOTS = 8192;
+    // a mapped buffer cannot be bigger than Integer.MAX_VALUE bytes
+    private static final int MAX_CAPACITY = 1 << 27;
+
+    // null once closed, readers take the reference once per access, so a concurrent close never pulls the mapping from under them
+    private volatile MappedByteBuffer buffer;
+    private final ElementCodec<? extends E> codec;
+    private final int size;
+    // package private access for test purposes
+    final int capacity;
+    private final int modCapacity;
+    private final int tableOffset;
+
+    private MappedIdSet(MappedByteBuffer buffer, ElementCodec<? extends E> codec, Path path) throws IOException {
+        this.buffer = buffer;
+        this.codec = codec;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(String.format("File %s is not an idSet.FlexSet snapshot.", path));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(String.format("Snapshot %s has unsupported version %s.", path, buffer.getInt(4)));
+        }
+        size = buffer.getInt(8);
+        capacity = buffer.getInt(12);
+        tableOffset = buffer.getInt(16);
+        modCapacity = capacity - 1;
+        if (capacity <= 0 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IOException(String.format("Snapshot %s has invalid capacity %s.", path, capacity));
+        }
+        if (size < 0 || size > capacity >> 1) {
+            throw new IOException(String.format("Snapshot %s has invalid size %s.", path, size));
+        }
+        if (tableOffset < HEADER_SIZE || (long) tableOffset + (long) capacity * SLOT_SIZE != buffer.capacity()) {
+            throw new IOException(String.format("Snapshot %s is truncated.", path));
+        }
+    }
+
+    public static <T extends Identifiable> MappedIdSet<T> open(Path path, ElementCodec<? extends T> codec) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(codec);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Snapshot %s is bigger than %s bytes.", path, Integer.MAX_VALUE));
+            }
+            return new MappedIdSet<>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codec, path);
+        }
+    }
+
+    // the file is written next to the target under a unique name and moved over it, so that readers never see a partially
+    // written snapshot and concurrent writers do not overwrite each other's temporary files, the directory is forced
+    // afterwards, so that the rename survives a crash
+    static <T extends Identifiable> void writeSnapshot(Path path, IdSet<T> idSet, ElementCodec<? super T> codec) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(codec);
+        int size = idSet.size();
+        int capacity = calculateCapacity(size);
+        int[] table = new int[capacity * 2];
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporaryPath = directory.resolve(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, CREATE_NEW, WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel.position(HEADER_SIZE))));
+            for (T e : idSet) {
+                // the number of written bytes stops growing at Integer.MAX_VALUE
+                if (out.size() > Integer.MAX_VALUE - HEADER_SIZE) {
+                    throw new IOException(String.format("Snapshot %s would be bigger than %s bytes.", path, Integer.MAX_VALUE));
+                }
+                insert(table, capacity - 1, e.getId().hashCode(), HEADER_SIZE + out.size());
+                codec.write(e, out);
+            }
+            out.flush();
+            long offset = HEADER_SIZE + (long) out.size();
+            if (offset + (long) capacity * SLOT_SIZE > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Snapshot %s would be bigger than %s bytes.", path, Integer.MAX_VALUE));
+            }
+            writeTable(channel, table, offset);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(capacity).putInt((int) offset).flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+        try {
+            Files.move(temporaryPath, path, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+        forceDirectory(directory);
+    }
+
+    // makes renames and truncations within the directory durable, directories cannot be opened on windows, where this
+    // is left to the file system, package private access for idSet.JournaledFlexSet
+    static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // nothing to force
+        }
+    }
+
+    private static void insert(int[] table, int modCapacity, int hashCode, int offset) {
+        int slot = modHashCode(hashCode, modCapacity);
+        while (table[slot * 2 + 1] != 0) {
+            slot = (slot + 1) & modCapacity;
+        }
+        table[slot * 2] = hashCode;
+        table[slot * 2 + 1] = offset;
+    }
+
+    private static void writeTable(FileChannel channel, int[] table, long position) throws IOException {
+        ByteBuffer slots = ByteBuffer.allocate(WRITE_BUFFER_SLOTS * SLOT_SIZE);
+        for (int from = 0; from < table.length; from += WRITE_BUFFER_SLOTS * 2) {
+            slots.clear();
+            slots.asIntBuffer().put(table, from, Math.min(WRITE_BUFFER_SLOTS * 2, table.length - from));
+            slots.limit(Math.min(WRITE_BUFFER_SLOTS * 2, table.length - from) * 4);
+            position += writeFully(channel, slots, position);
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException {
+        int written = 0;
+        while (source.hasRemaining()) {
+            written += channel.write(source, position + written);
+        }
+        return written;
+    }
+
+    // at most one element per two slots, so that probing stays short
+    private static int calculateCapacity(int size) {
+        if (size > MAX_CAPACITY >> 1) {
+            throw new IllegalArgumentException(String.format("Cannot write more than %s elements into a snapshot.", MAX_CAPACITY >> 1));
+        }
+        return Math.max(Integer.highestOneBit(Math.max(size, 1) * 4 - 1), 2);
+    }
+
+    private static int modHashCode(int hashCode, int modCapacity) {
+        return HashStrategy.MURMUR.spread(hashCode) & modCapacity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // only elements whose hash code matches are decoded, the table of a corrupted file may have no empty slot left,
+    // so the probe stops after capacity slots
+    @Override
+    public E get(Object id) {
+        Objects.requireNonNull(id);
+        MappedByteBuffer buffer = openBuffer();
+        int hashCode = id.hashCode();
+        int slot = modHashCode(hashCode, modCapacity);
+        for (int probed = 0; probed < capacity; probed++, slot = (slot + 1) & modCapacity) {
+            int position = tableOffset + slot * SLOT_SIZE;
+            int offset = buffer.getInt(position + 4);
+            if (offset == 0) {
+                return null;
+            }
+            if (buffer.getInt(position) == hashCode) {
+                E e = read(buffer, offset);
+                if (e.getId().equals(id)) {
+                    return e;
+                }
+            }
+        }
+        return null;
+    }
+
+    private E read(MappedByteBuffer buffer, int offset) {
+        if (offset < HEADER_SIZE || offset >= tableOffset) {
+            throw new UncheckedIOException(new IOException(String.format("Snapshot has element offset %s out of bounds.", offset)));
+        }
+        try {
+            return codec.read(new DataInputStream(new ByteBufferInputStream(elementsOf(buffer, offset))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the codec cannot read past the encoded elements into the table
+    private ByteBuffer elementsOf(MappedByteBuffer buffer, int offset) {
+        ByteBuffer source = buffer.duplicate();
+        source.limit(tableOffset);
+        source.position(offset);
+        return source;
+    }
+
+    // elements are decoded in the order they were written
+    @Override
+    public Iterator<E> iterator() {
+        ByteBuffer source = elementsOf(openBuffer(), HEADER_SIZE);
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(source));
+        return new Iterator<E>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                openBuffer();
+                index++;
+                try {
+                    return codec.read(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+        };
+    }
+
+    // the set cannot be used afterwards, the file is not unmapped explicitly, as readers on other threads may still hold
+    // the mapping, it is released once the garbage collector reclaims the buffer
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private MappedByteBuffer openBuffer() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("idSet.MappedIdSet has been closed.");
+        }
+        return buffer;
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public E removeId(Object id) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeAllIds(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean retainAllIds(Collection<?> c) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw unsupportedOperation();
+    }
+
+    @Override
+    public void clear() {
+        throw unsupportedOperation();
+    }
+
+    private UnsupportedOperationException unsupportedOperation() {
+        return new UnsupportedOperationException("idSet.MappedIdSet cannot be modified.");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MappedIdSet<?> mappedIdSet = (MappedIdSet<?>) o;
+        return size == mappedIdSet.size &&
+                containsAll(mappedIdSet);
+    }
+
+    // hash codes are read from the table, no element is decoded
+    @Override
+    public int hashCode() {
+        MappedByteBuffer buffer = openBuffer();
+        int hashCodesSum = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = tableOffset + slot * SLOT_SIZE;
+            if (buffer.getInt(position + 4) != 0) {
+                hashCodesSum += buffer.getInt(position);
+            }
+        }
+        return Objects.hash(size, hashCodesSum);
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "idSet.MappedIdSet{" +
+                "size=" + size +
+                ", capacity=" + capacity +
+                '}';
+    }
+
+    // reads straight from the mapped pages, without copying them into an intermediate array
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer source;
+
+        private ByteBufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? source.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, source.remaining());
+            source.get(b, off, read);
+            return read;
+        }
+
+    }
+
+}
@@ -0,0 +1,338 @@
+package idSet;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// idSet.FlexSet notifying registered listeners of every change made through it, including removal through the iterator,
+// removeIf and retainAll, listeners are called synchronously by the thread making the change, in the order of registration,
+// listeners created by batching buffer the changes and deliver them in batches on an executor instead,
+// with no listeners registered a change costs one check more than in idSet.FlexSet, an exception thrown by a listener
+// neither undoes the change nor stops the remaining listeners, it is reported to the uncaught exception handler of the
+// thread making the change
+public class ObservableFlexSet<E extends Identifiable> extends AbstractIdSet<E> implements Identifiable {
+
+    private final FlexSet<E> flexSet;
+    private final List<Listener<? super E>> listeners = new CopyOnWriteArrayList<>();
+
+    private ObservableFlexSet(FlexSet<E> flexSet) {
+        this.flexSet = flexSet;
+    }
+
+    public static <T extends Identifiable> ObservableFlexSet<T> instance() {
+        return new ObservableFlexSet<>(FlexSet.instance());
+    }
+
+    public static <T extends Identifiable> ObservableFlexSet<T> instance(FlexSet.Builder builder) {
+        return new ObservableFlexSet<>(builder.build());
+    }
+
+    public void addListener(Listener<? super E> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public boolean removeListener(Listener<? super E> listener) {
+        return listeners.remove(listener);
+    }
+
+    // changes are buffered and handed over to batchListener on the executor, in the order they were made and at most
+    // maxBatchSize at a time, changes made while a batch is being delivered are collected into the next one, so a slow
+    // batchListener gets fewer, bigger batches, at most one batch is delivered at a time even on a multithreaded executor
+    public static <T extends Identifiable> Listener<T> batching(Consumer<? super List<Change<T>>> batchListener, Executor executor, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Parameter maxBatchSize should be greater than 0.");
+        }
+        return new BatchingListener<>(Objects.requireNonNull(batchListener), Objects.requireNonNull(executor), maxBatchSize);
+    }
+
+    @Override
+    public int size() {
+        return flexSet.size();
+    }
+
+    @Override
+    public E get(Object id) {
+        return flexSet.get(id);
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (!flexSet.add(e)) {
+            return false;
+        }
+        if (!listeners.isEmpty()) {
+            for (Listener<? super E> listener : listeners) {
+                try {
+                    listener.onAdd(e);
+                } catch (RuntimeException exception) {
+                    report(exception);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E removeId(Object id) {
+        E e = flexSet.removeId(id);
+        if (e != null) {
+            notifyRemoved(e);
+        }
+        return e;
+    }
+
+    private void notifyRemoved(E e) {
+        if (!listeners.isEmpty()) {
+            for (Listener<? super E> listener : listeners) {
+                try {
+                    listener.onRemove(e);
+                } catch (RuntimeException exception) {
+                    report(exception);
+                }
+            }
+        }
+    }
+
+    // clearing an empty set is not a change
+    @Override
+    public void clear() {
+        if (flexSet.isEmpty()) {
+            return;
+        }
+        flexSet.clear();
+        if (!listeners.isEmpty()) {
+            for (Listener<? super E> listener : listeners) {
+                try {
+                    listener.onClear();
+                } catch (RuntimeException exception) {
+                    report(exception);
+                }
+            }
+        }
+    }
+
+    private static void report(RuntimeException exception) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator = flexSet.iterator();
+        return new Iterator<E>() {
+            private E lastReturned;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                lastReturned = iterator.next();
+                return lastReturned;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                notifyRemoved(lastReturned);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        flexSet.forEach(action);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ObservableFlexSet<?> observableFlexSet = (ObservableFlexSet<?>) o;
+        return flexSet.equals(observableFlexSet.flexSet);
+    }
+
+    @Override
+    public int hashCode() {
+        return flexSet.hashCode();
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "idSet.ObservableFlexSet{" +
+                "flexSet=" + flexSet +
+                '}';
+    }
+
+    public interface Listener<E extends Identifiable> {
+
+        default void onAdd(E e) {
+        }
+
+        default void onRemove(E e) {
+        }
+
+        default void onClear() {
+        }
+
+    }
+
+    public static final class Change<E extends Identifiable> {
+
+        public enum Type {
+            ADD, REMOVE, CLEAR
+        }
+
+        private final Type type;
+        private final E e;
+
+        private Change(Type type, E e) {
+            this.type = type;
+            this.e = e;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        // null for CLEAR
+        public E getElement() {
+            return e;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Change<?> change = (Change<?>) o;
+            return type == change.type &&
+                    Objects.equals(e, change.e);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, e);
+        }
+
+        @Override
+        public String toString() {
+            return "idSet.ObservableFlexSet.Change{" +
+                    "type=" + type +
+                    ", e=" + e +
+                    '}';
+        }
+    }
+
+    // scheduled is true from the moment a delivery is handed over to the executor until it finds no pending changes
+    private static final class BatchingListener<E extends Identifiable> implements Listener<E> {
+
+        private final Consumer<? super List<Change<E>>> batchListener;
+        private final Executor executor;
+        private final int maxBatchSize;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Change<E>> pending = new ArrayDeque<>();
+        private boolean scheduled;
+
+        private BatchingListener(Consumer<? super List<Change<E>>> batchListener, Executor executor, int maxBatchSize) {
+            this.batchListener = batchListener;
+            this.executor = executor;
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        @Override
+        public void onAdd(E e) {
+            enqueue(new Change<>(Change.Type.ADD, e));
+        }
+
+        @Override
+        public void onRemove(E e) {
+            enqueue(new Change<>(Change.Type.REMOVE, e));
+        }
+
+        @Override
+        public void onClear() {
+            enqueue(new Change<>(Change.Type.CLEAR, null));
+        }
+
+        private void enqueue(Change<E> change) {
+            lock.lock();
+            try {
+                pending.add(change);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            } finally {
+                lock.unlock();
+            }
+            schedule();
+        }
+
+        // the changes stay pending, the next change schedules their delivery again, the rejection is reported instead of
+        // being thrown, as the change has been made already
+        private void schedule() {
+            try {
+                executor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                lock.lock();
+                try {
+                    scheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+                report(e);
+            }
+        }
+
+        private void deliver() {
+            while (true) {
+                List<Change<E>> batch;
+                lock.lock();
+                try {
+                    if (pending.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+                    while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+                        batch.add(pending.poll());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    batchListener.accept(Collections.unmodifiableList(batch));
+                } catch (RuntimeException e) {
+                    rescheduleAfterFailure();
+                    throw e;
+                }
+            }
+        }
+
+        // the failed batch is dropped, the remaining changes are delivered by a new task
+        private void rescheduleAfterFailure() {
+            boolean rescheduled;
+            lock.lock();
+            try {
+                rescheduled = !pending.isEmpty();
+                scheduled = rescheduled;
+            } finally {
+                lock.unlock();
+            }
+            if (rescheduled) {
+                schedule();
+            }
+        }
+    }
+
+}
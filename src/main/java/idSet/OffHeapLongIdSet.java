@@ -0,0 +1,403 @@
+package idSet;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.function.Consumer;
+
+// the index of ids lives in direct memory, a slot holds the id and the handle of its element, elements are kept densely
+// in an on-heap array addressed by the handles, so the garbage collector traces neither the index nor any node per element,
+// the memory is freed by close, the set cannot be used afterwards
+public class OffHeapLongIdSet<E extends LongIdentifiable> extends AbstractIdSet<E> implements Identifiable, AutoCloseable {
+
+    // a direct buffer cannot be bigger than Integer.MAX_VALUE bytes, package private access for test purposes
+    static final int MAX_CAPACITY = 1 << 27;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // id at offset 0, handle + 1 at offset 8, 0 stands for an empty slot
+    private static final int SLOT_SIZE = 12;
+    private static final int HANDLE_OFFSET = 8;
+
+    // package private access for test purposes
+    ByteBuffer index;
+    private Object[] elements;
+    private int size;
+
+    // package private access for test purposes
+    int capacity;
+    private int modCapacity;
+    // package private access for test purposes
+    int expansionThreshold;
+    private int shrinkThreshold;
+
+    private OffHeapLongIdSet(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Parameter initialCapacity should be greater than 0.");
+        }
+        size = 0;
+        capacity = Math.min(AbstractOpenAddressingIdSet.calculateCapacity(initialCapacity), MAX_CAPACITY);
+        calculateModCapacity();
+        calculateResizeThresholds();
+        index = allocateIndex(capacity);
+        elements = new Object[expansionThreshold + 1];
+    }
+
+    public static <T extends LongIdentifiable> OffHeapLongIdSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends LongIdentifiable> OffHeapLongIdSet<T> instance(int initialCapacity) {
+        return new OffHeapLongIdSet<>(initialCapacity);
+    }
+
+    @SafeVarargs
+    public static <T extends LongIdentifiable> OffHeapLongIdSet<T> fromArray(T... a) {
+        OffHeapLongIdSet<T> idSet = instance(a.length);
+        Collections.addAll(idSet, a);
+        return idSet;
+    }
+
+    private static ByteBuffer allocateIndex(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * SLOT_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof LongIdentifiable) {
+            return containsLong(((LongIdentifiable) o).getLongId());
+        }
+        return super.contains(o);
+    }
+
+    public boolean containsLong(long id) {
+        ensureOpen();
+        return slotOf(id) >= 0;
+    }
+
+    @Override
+    public E get(Object id) {
+        return id instanceof Long ? getLong((Long) id) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E getLong(long id) {
+        ensureOpen();
+        int slot = slotOf(id);
+        return slot < 0 ? null : (E) elements[handleAt(slot)];
+    }
+
+    private int slotOf(long id) {
+        int slot = modHashCode(id);
+        for (int distance = 0; ; distance++) {
+            if (isEmpty(slot)) {
+                return -1;
+            }
+            long currentId = idAt(slot);
+            if (currentId == id) {
+                return slot;
+            }
+            if (probeDistance(currentId, slot) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & modCapacity;
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        ensureOpen();
+        long id = e.getLongId();
+        if (slotOf(id) >= 0) {
+            return false;
+        }
+        ensureNotFull();
+        elements[size] = e;
+        insert(id, size);
+        expandOnAdditionIfNeeded();
+        return true;
+    }
+
+    private void ensureNotFull() {
+        if (capacity == MAX_CAPACITY && size == expansionThreshold) {
+            throw new IllegalStateException(String.format("Cannot add more than %s elements to idSet.OffHeapLongIdSet.", size));
+        }
+    }
+
+    // robin hood insertion, as in idSet.LongFlexSet
+    private void insert(long id, int handle) {
+        int slot = modHashCode(id);
+        int distance = 0;
+        while (!isEmpty(slot)) {
+            long currentId = idAt(slot);
+            int currentDistance = probeDistance(currentId, slot);
+            if (currentDistance < distance) {
+                int currentHandle = handleAt(slot);
+                put(slot, id, handle);
+                id = currentId;
+                handle = currentHandle;
+                distance = currentDistance;
+            }
+            slot = (slot + 1) & modCapacity;
+            distance++;
+        }
+        put(slot, id, handle);
+    }
+
+    private void expandOnAdditionIfNeeded() {
+        size++;
+        if ((capacity < MAX_CAPACITY) && (size > expansionThreshold)) {
+            capacity <<= 1;
+            rebuild();
+        }
+    }
+
+    // the new index is filled before the previous one is freed, elements keep their handles
+    private void rebuild() {
+        calculateModCapacity();
+        calculateResizeThresholds();
+        ByteBuffer previousIndex = index;
+        index = allocateIndex(capacity);
+        for (int slot = 0; slot < previousIndex.capacity() / SLOT_SIZE; slot++) {
+            int handle = previousIndex.getInt(slot * SLOT_SIZE + HANDLE_OFFSET) - 1;
+            if (handle >= 0) {
+                insert(previousIndex.getLong(slot * SLOT_SIZE), handle);
+            }
+        }
+        free(previousIndex);
+        elements = Arrays.copyOf(elements, expansionThreshold + 1);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof LongIdentifiable) {
+            return removeLong(((LongIdentifiable) o).getLongId()) != null;
+        }
+        return super.remove(o);
+    }
+
+    @Override
+    public E removeId(Object id) {
+        return id instanceof Long ? removeLong((Long) id) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E removeLong(long id) {
+        ensureOpen();
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return null;
+        }
+        int handle = handleAt(slot);
+        E e = (E) elements[handle];
+        removeAt(slot);
+        removeHandle(handle);
+        shrinkOnRemovalIfNeeded();
+        return e;
+    }
+
+    // the following slots of the cluster are shifted back, so that no tombstones are needed
+    private void removeAt(int slot) {
+        int next = (slot + 1) & modCapacity;
+        while (!isEmpty(next) && probeDistance(idAt(next), next) > 0) {
+            put(slot, idAt(next), handleAt(next));
+            slot = next;
+            next = (next + 1) & modCapacity;
+        }
+        index.putLong(slot * SLOT_SIZE, 0);
+        index.putInt(slot * SLOT_SIZE + HANDLE_OFFSET, 0);
+    }
+
+    // the last element fills the gap, so the elements stay dense
+    private void removeHandle(int handle) {
+        int lastHandle = size - 1;
+        if (handle != lastHandle) {
+            Object last = elements[lastHandle];
+            elements[handle] = last;
+            index.putInt(slotOf(((LongIdentifiable) last).getLongId()) * SLOT_SIZE + HANDLE_OFFSET, handle + 1);
+        }
+        elements[lastHandle] = null;
+    }
+
+    private void shrinkOnRemovalIfNeeded() {
+        size--;
+        if ((capacity > 63) && (size < shrinkThreshold)) {
+            capacity >>= 2;
+            rebuild();
+        }
+    }
+
+    @Override
+    public void clear() {
+        ensureOpen();
+        for (int slot = 0; slot < capacity; slot++) {
+            index.putLong(slot * SLOT_SIZE, 0);
+            index.putInt(slot * SLOT_SIZE + HANDLE_OFFSET, 0);
+        }
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    // elements are traversed in their dense array, the index is not read at all
+    @Override
+    public Iterator<E> iterator() {
+        ensureOpen();
+        return new Iterator<E>() {
+            private int handle;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return handle < size;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                removable = true;
+                return (E) elements[handle++];
+            }
+
+            // the last element is moved into the gap, so it is returned next
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                removeLong(((LongIdentifiable) elements[--handle]).getLongId());
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        ensureOpen();
+        for (int handle = 0; handle < size; handle++) {
+            action.accept((E) elements[handle]);
+        }
+    }
+
+    // frees the direct memory at once instead of waiting for the garbage collector to collect the buffer
+    @Override
+    public void close() {
+        if (index != null) {
+            free(index);
+            index = null;
+            elements = null;
+            size = 0;
+        }
+    }
+
+    private void ensureOpen() {
+        if (index == null) {
+            throw new IllegalStateException("idSet.OffHeapLongIdSet has been closed.");
+        }
+    }
+
+    // sun.misc.Unsafe.invokeCleaner on java 9 and later, the cleaner of the buffer on java 8, if neither is accessible,
+    // the memory is freed when the buffer is garbage collected
+    private static void free(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {
+            freeWithCleaner(buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // left to the garbage collector
+        }
+    }
+
+    private static void freeWithCleaner(ByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // left to the garbage collector
+        }
+    }
+
+    private boolean isEmpty(int slot) {
+        return index.getInt(slot * SLOT_SIZE + HANDLE_OFFSET) == 0;
+    }
+
+    private long idAt(int slot) {
+        return index.getLong(slot * SLOT_SIZE);
+    }
+
+    private int handleAt(int slot) {
+        return index.getInt(slot * SLOT_SIZE + HANDLE_OFFSET) - 1;
+    }
+
+    private void put(int slot, long id, int handle) {
+        index.putLong(slot * SLOT_SIZE, id);
+        index.putInt(slot * SLOT_SIZE + HANDLE_OFFSET, handle + 1);
+    }
+
+    private int modHashCode(long id) {
+        long hashCode = id * 0x9E3779B97F4A7C15L;
+        return (int) (hashCode ^ (hashCode >>> 32)) & modCapacity;
+    }
+
+    private int probeDistance(long id, int slot) {
+        return (slot - modHashCode(id)) & modCapacity;
+    }
+
+    private void calculateModCapacity() {
+        modCapacity = capacity - 1;
+    }
+
+    private void calculateResizeThresholds() {
+        expansionThreshold = capacity - (capacity >> 2);
+        shrinkThreshold = capacity >> 3;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OffHeapLongIdSet<?> idSet = (OffHeapLongIdSet<?>) o;
+        return size == idSet.size &&
+                containsAll(idSet);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCodesSum = 0;
+        for (int handle = 0; handle < size; handle++) {
+            hashCodesSum += Long.hashCode(((LongIdentifiable) elements[handle]).getLongId());
+        }
+        return Objects.hash(size, hashCodesSum);
+    }
+
+    @Override
+    public Object getId() {
+        return hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "idSet.OffHeapLongIdSet{" +
+                "elements=" + (elements == null ? "closed" : Arrays.toString(Arrays.copyOf(elements, size))) +
+                '}';
+    }
+
+}
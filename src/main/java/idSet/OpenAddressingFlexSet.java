@@ -0,0 +1,97 @@
+package idSet;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+// elements and their id hash codes are kept in two parallel flat arrays, collisions are resolved by linear probing with robin hood insertion
+public class OpenAddressingFlexSet<E extends Identifiable> extends AbstractOpenAddressingIdSet<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // package private access for test purposes
+    int[] hashCodes;
+
+    private OpenAddressingFlexSet(int initialCapacity) {
+        super(initialCapacity);
+        hashCodes = new int[capacity];
+    }
+
+    public static <T extends Identifiable> OpenAddressingFlexSet<T> instance() {
+        return instance(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public static <T extends Identifiable> OpenAddressingFlexSet<T> instance(int initialCapacity) {
+        return new OpenAddressingFlexSet<>(initialCapacity);
+    }
+
+    @SafeVarargs
+    public static <T extends Identifiable> OpenAddressingFlexSet<T> fromArray(T... a) {
+        OpenAddressingFlexSet<T> flexSet = instance(a.length);
+        Collections.addAll(flexSet, a);
+        return flexSet;
+    }
+
+    public static <K, V> OpenAddressingFlexSet<IdWrapper<K, V>> fromMap(Map<K, V> map) {
+        Objects.requireNonNull(map);
+        OpenAddressingFlexSet<IdWrapper<K, V>> flexSet = instance(map.size());
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            flexSet.add(new IdWrapper<>(entry.getKey(), entry.getValue()));
+        }
+        return flexSet;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E get(Object id) {
+        int index = indexOf(id.hashCode(), id);
+        return index < 0 ? null : (E) elements[index];
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        Object id = e.getId();
+        return add(e, id.hashCode(), id);
+    }
+
+    @Override
+    public E removeId(Object id) {
+        return removeId(id.hashCode(), id);
+    }
+
+    // hash codes match, the ids are compared
+    @SuppressWarnings("unchecked")
+    @Override
+    boolean matches(int index, Object id) {
+        return ((E) elements[index]).getId().equals(id);
+    }
+
+    @Override
+    int homeIndexOf(long hashCode) {
+        int h = (int) hashCode;
+        return (h ^ (h >>> 16)) & modCapacity;
+    }
+
+    @Override
+    long keyAt(int index) {
+        return hashCodes[index];
+    }
+
+    @Override
+    void setKey(int index, long key) {
+        hashCodes[index] = (int) key;
+    }
+
+    @Override
+    IntToLongFunction replaceKeys() {
+        int[] previousHashCodes = hashCodes;
+        hashCodes = new int[capacity];
+        return index -> previousHashCodes[index];
+    }
+
+    @Override
+    int keyHashCodeAt(int index) {
+        return hashCodes[index];
+    }
+
+}
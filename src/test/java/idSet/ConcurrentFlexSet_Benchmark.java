@@ -0,0 +1,90 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// all threads share one set, reads hit the preloaded ids, writes add and remove ids outside of them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentFlexSet_Benchmark {
+
+    private TestObject_0[] testObjects;
+    private ConcurrentFlexSet<TestObject_0> concurrentFlexSet;
+    private ConcurrentHashMap<Object, TestObject_0> concurrentHashMap;
+    private FlexSet<TestObject_0> synchronizedFlexSet;
+
+    @Param({"65536"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_0[numberOfElements * 2];
+        for (int i = 0; i < testObjects.length; i++) {
+            testObjects[i] = new TestObject_0(i);
+        }
+        concurrentFlexSet = ConcurrentFlexSet.instance();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        synchronizedFlexSet = FlexSet.instance();
+        for (int i = 0; i < numberOfElements; i++) {
+            concurrentFlexSet.add(testObjects[i]);
+            concurrentHashMap.put(testObjects[i].getId(), testObjects[i]);
+            synchronizedFlexSet.add(testObjects[i]);
+        }
+    }
+
+    @Benchmark
+    public Object timeGet_ConcurrentFlexSet() {
+        return concurrentFlexSet.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    public Object timeGet_ConcurrentHashMap() {
+        return concurrentHashMap.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    public Object timeGet_SynchronizedFlexSet() {
+        Object id = ThreadLocalRandom.current().nextInt(numberOfElements);
+        synchronized (synchronizedFlexSet) {
+            return synchronizedFlexSet.get(id);
+        }
+    }
+
+    @Benchmark
+    public Object timeAddAndRemoveId_ConcurrentFlexSet() {
+        TestObject_0 testObject = nextWrittenTestObject();
+        concurrentFlexSet.add(testObject);
+        return concurrentFlexSet.removeId(testObject.getId());
+    }
+
+    @Benchmark
+    public Object timeAddAndRemoveId_ConcurrentHashMap() {
+        TestObject_0 testObject = nextWrittenTestObject();
+        concurrentHashMap.putIfAbsent(testObject.getId(), testObject);
+        return concurrentHashMap.remove(testObject.getId());
+    }
+
+    @Benchmark
+    public Object timeAddAndRemoveId_SynchronizedFlexSet() {
+        TestObject_0 testObject = nextWrittenTestObject();
+        synchronized (synchronizedFlexSet) {
+            synchronizedFlexSet.add(testObject);
+            return synchronizedFlexSet.removeId(testObject.getId());
+        }
+    }
+
+    private TestObject_0 nextWrittenTestObject() {
+        return testObjects[numberOfElements + ThreadLocalRandom.current().nextInt(numberOfElements)];
+    }
+
+}
@@ -0,0 +1,148 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrentFlexSet_Test {
+
+    private static final int THREADS_COUNT = 8;
+
+    @Test
+    public void shouldAddGetAndRemoveElements() {
+        ConcurrentFlexSet<TestObject_0> flexSet = ConcurrentFlexSet.instance();
+        TestObject_0 added = new TestObject_0(0);
+        assertTrue(flexSet.add(added));
+        assertTrue(!flexSet.add(new TestObject_0(0)));
+        assertTrue(flexSet.size() == 1);
+        assertTrue(flexSet.get(0) == added);
+        assertTrue(flexSet.contains(new TestObject_0(0)));
+        assertTrue(flexSet.removeId(0) == added);
+        assertTrue(flexSet.removeId(0) == null);
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldExpandOnAddition() {
+        ConcurrentFlexSet<TestObject_0> flexSet = ConcurrentFlexSet.instance();
+        int capacity = flexSet.elements.length();
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i * 1024));
+        }
+        assertTrue(flexSet.elements.length() > capacity);
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.containsId(i * 1024));
+        }
+    }
+
+    @Test
+    public void shouldNeverUseLessBucketsThanStripes() {
+        assertTrue(ConcurrentFlexSet.instance(1).elements.length() == ConcurrentFlexSet.STRIPES_COUNT);
+    }
+
+    @Test
+    public void shouldIterateAndRemoveThroughIterator() {
+        ConcurrentFlexSet<TestObject_0> flexSet = ConcurrentFlexSet.instance();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        Set<TestObject_0> iterated = new HashSet<>();
+        for (Iterator<TestObject_0> iterator = flexSet.iterator(); iterator.hasNext(); ) {
+            TestObject_0 testObject = iterator.next();
+            iterated.add(testObject);
+            if (testObject.getId() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertTrue(iterated.size() == 100);
+        assertTrue(flexSet.size() == 50);
+        assertTrue(flexSet.retainAllIds(Arrays.asList(1, 3)));
+        assertTrue(flexSet.size() == 2);
+    }
+
+    @Test
+    public void shouldAddElementsConcurrently() throws Exception {
+        ConcurrentFlexSet<TestObject_0> flexSet = ConcurrentFlexSet.instance();
+        int elementsPerThread = 16384;
+        runConcurrently(thread -> {
+            for (int i=0; i<elementsPerThread; i++) {
+                assertTrue(flexSet.add(new TestObject_0(thread * elementsPerThread + i)));
+            }
+        });
+        assertTrue(flexSet.size() == THREADS_COUNT * elementsPerThread);
+        for (int i=0; i<THREADS_COUNT * elementsPerThread; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+    }
+
+    @Test
+    public void shouldFindStableElementsWhileOthersAreAddedAndRemoved() throws Exception {
+        ConcurrentFlexSet<TestObject_0> flexSet = ConcurrentFlexSet.instance();
+        int stableCount = 4096;
+        for (int i=0; i<stableCount; i++) {
+            flexSet.add(new TestObject_0(-i - 1));
+        }
+        AtomicBoolean missing = new AtomicBoolean();
+        runConcurrently(thread -> {
+            for (int i=0; i<8192; i++) {
+                if (thread % 2 == 0) {
+                    int id = thread * 8192 + i;
+                    flexSet.add(new TestObject_0(id));
+                    if (i % 3 == 0) {
+                        flexSet.removeId(id);
+                    }
+                } else if (!flexSet.containsId(-(i % stableCount) - 1)) {
+                    missing.set(true);
+                }
+            }
+        });
+        assertTrue(!missing.get());
+        int expectedSize = stableCount;
+        for (int thread=0; thread<THREADS_COUNT; thread+=2) {
+            for (int i=0; i<8192; i++) {
+                assertTrue(flexSet.containsId(thread * 8192 + i) == (i % 3 != 0));
+                expectedSize += i % 3 != 0 ? 1 : 0;
+            }
+        }
+        assertTrue(flexSet.size() == expectedSize);
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS_COUNT);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i=0; i<THREADS_COUNT; i++) {
+                int thread = i;
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+
+}
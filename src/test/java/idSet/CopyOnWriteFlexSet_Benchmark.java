@@ -0,0 +1,82 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// one writer adds and removes ids outside of the preloaded ones while the readers look up the preloaded ids,
+// run with different reader counts, e.g. -tg 1,7, to see how the readers scale
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Group)
+public class CopyOnWriteFlexSet_Benchmark {
+
+    private TestObject_0[] testObjects;
+    private CopyOnWriteFlexSet<TestObject_0> copyOnWriteFlexSet;
+    private FlexSet<TestObject_0> synchronizedFlexSet;
+
+    @Param({"65536"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_0[numberOfElements * 2];
+        for (int i = 0; i < testObjects.length; i++) {
+            testObjects[i] = new TestObject_0(i);
+        }
+        copyOnWriteFlexSet = CopyOnWriteFlexSet.instance();
+        synchronizedFlexSet = FlexSet.instance();
+        for (int i = 0; i < numberOfElements; i++) {
+            copyOnWriteFlexSet.add(testObjects[i]);
+            synchronizedFlexSet.add(testObjects[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("copyOnWriteFlexSet")
+    @GroupThreads(1)
+    public Object write_CopyOnWriteFlexSet() {
+        TestObject_0 testObject = nextWrittenTestObject();
+        copyOnWriteFlexSet.add(testObject);
+        return copyOnWriteFlexSet.removeId(testObject.getId());
+    }
+
+    @Benchmark
+    @Group("copyOnWriteFlexSet")
+    @GroupThreads(3)
+    public Object read_CopyOnWriteFlexSet() {
+        return copyOnWriteFlexSet.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    @Group("synchronizedFlexSet")
+    @GroupThreads(1)
+    public Object write_SynchronizedFlexSet() {
+        TestObject_0 testObject = nextWrittenTestObject();
+        synchronized (synchronizedFlexSet) {
+            synchronizedFlexSet.add(testObject);
+            return synchronizedFlexSet.removeId(testObject.getId());
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedFlexSet")
+    @GroupThreads(3)
+    public Object read_SynchronizedFlexSet() {
+        Object id = ThreadLocalRandom.current().nextInt(numberOfElements);
+        synchronized (synchronizedFlexSet) {
+            return synchronizedFlexSet.get(id);
+        }
+    }
+
+    private TestObject_0 nextWrittenTestObject() {
+        return testObjects[numberOfElements + ThreadLocalRandom.current().nextInt(numberOfElements)];
+    }
+
+}
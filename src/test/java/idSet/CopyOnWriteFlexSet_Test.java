@@ -0,0 +1,115 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CopyOnWriteFlexSet_Test {
+
+    @Test
+    public void shouldAddGetAndRemoveElements() {
+        CopyOnWriteFlexSet<TestObject_0> flexSet = CopyOnWriteFlexSet.instance();
+        TestObject_0 added = new TestObject_0(0);
+        assertTrue(flexSet.add(added));
+        assertTrue(!flexSet.add(new TestObject_0(0)));
+        assertTrue(flexSet.size() == 1);
+        assertTrue(flexSet.get(0) == added);
+        assertTrue(flexSet.removeId(0) == added);
+        assertTrue(flexSet.removeId(0) == null);
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveFromTheMiddleOfBucketWithoutChangingPreviousChain() {
+        CopyOnWriteFlexSet<TestObject_0> flexSet = CopyOnWriteFlexSet.instance();
+        int capacity = flexSet.elements.length();
+        for (int i=0; i<3; i++) {
+            flexSet.add(new TestObject_0(i * capacity));
+        }
+        CopyOnWriteFlexSet.Node<TestObject_0> first = flexSet.elements.get(0);
+        assertTrue(flexSet.removeId(capacity) != null);
+        int chainLength = 0;
+        for (CopyOnWriteFlexSet.Node<TestObject_0> node = first; node != null; node = node.next) {
+            chainLength++;
+        }
+        assertTrue(chainLength == 3);
+        assertTrue(flexSet.containsId(0) && flexSet.containsId(2 * capacity) && !flexSet.containsId(capacity));
+    }
+
+    @Test
+    public void shouldExpandAndShrink() {
+        CopyOnWriteFlexSet<TestObject_0> flexSet = CopyOnWriteFlexSet.instance();
+        int capacity = flexSet.elements.length();
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.elements.length() > capacity);
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.removeId(i) != null);
+        }
+        assertTrue(flexSet.elements.length() < 1024);
+    }
+
+    @Test
+    public void shouldIterateWithForEachAndIterator() {
+        CopyOnWriteFlexSet<TestObject_0> flexSet = CopyOnWriteFlexSet.instance();
+        Set<TestObject_0> set = new HashSet<>();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i));
+            set.add(new TestObject_0(i));
+        }
+        Set<TestObject_0> iterated = new HashSet<>();
+        flexSet.forEach(iterated::add);
+        assertTrue(iterated.equals(set));
+        assertTrue(new HashSet<>(flexSet).equals(set));
+    }
+
+    @Test
+    public void shouldFindStableElementsWhileOtherAreWritten() throws Exception {
+        CopyOnWriteFlexSet<TestObject_0> flexSet = CopyOnWriteFlexSet.instance();
+        int stableCount = 4096;
+        for (int i=0; i<stableCount; i++) {
+            flexSet.add(new TestObject_0(-i - 1));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean missing = new AtomicBoolean();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i=0; i<3; i++) {
+                readers.add(executorService.submit(() -> {
+                    for (int j=0; running.get(); j++) {
+                        if (!flexSet.containsId(-(j % stableCount) - 1)) {
+                            missing.set(true);
+                        }
+                    }
+                }));
+            }
+            Future<?> writer = executorService.submit(() -> {
+                for (int i=0; i<65536; i++) {
+                    flexSet.add(new TestObject_0(i));
+                    if (i % 2 == 0) {
+                        flexSet.removeId(i);
+                    }
+                }
+                running.set(false);
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertTrue(!missing.get());
+        assertTrue(flexSet.size() == stableCount + 32768);
+    }
+
+}
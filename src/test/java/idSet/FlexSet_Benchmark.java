@@ -23,19 +23,24 @@ public class FlexSet_Benchmark {
 
     private Object[] ids;
     private Identifiable[] testObjects;
+    private Identifiable[] out;
 
     private HashMap<Object, Object> hashMap_add;
     private HashSet<Object> hashSet_add;
     private FlexSet<Identifiable> flexSet_add;
+    private OpenAddressingFlexSet<Identifiable> openAddressingFlexSet_add;
 
     private HashMap<Object, Object> hashMap_contains;
     private HashSet<Object> hashSet_contains;
     private FlexSet<Identifiable> flexSet_contains;
+    private OpenAddressingFlexSet<Identifiable> openAddressingFlexSet_contains;
 
     private HashMap<Object, Object> hashMap_removeId;
     private FlexSet<Identifiable> flexSet_removeId;
     private HashSet<Object> hashSet_remove;
     private FlexSet<Identifiable> flexSet_remove;
+    private OpenAddressingFlexSet<Identifiable> openAddressingFlexSet_removeId;
+    private OpenAddressingFlexSet<Identifiable> openAddressingFlexSet_remove;
 
     @Param({"1", "2", "4", "8", "16", "32", "64", "128", "256", "512", "1024", "2048", "4096", "8192", "16384", "32768", "65536", "131072", "262144", "524288"})
     //@Param({"256", "512"})
@@ -45,7 +50,8 @@ public class FlexSet_Benchmark {
     //@Param({"3"})
     private int function;
 
-    @Param({"0", "1"})
+    // 2 stands for primitive long ids, which are boxed by the generic sets
+    @Param({"0", "1", "2"})
     //@Param({"0"})
     private int testObjectType;
 
@@ -60,9 +66,14 @@ public class FlexSet_Benchmark {
                 ids = new ComplexTestObject.IntegerId[numberOfElements];
                 testObjects = new ComplexTestObject[numberOfElements];
                 break;
+            case 2:
+                ids = new Long[numberOfElements];
+                testObjects = new TestObject_7[numberOfElements];
+                break;
             default:
                 throw new Exception();
         }
+        out = new Identifiable[numberOfElements];
         hashMap_add = new HashMap<>();
         hashSet_add = new HashSet<>();
         flexSet_add = FlexSet.instance();
@@ -73,6 +84,10 @@ public class FlexSet_Benchmark {
         flexSet_removeId = FlexSet.instance();
         hashSet_remove = new HashSet<>();
         flexSet_remove = FlexSet.instance();
+        openAddressingFlexSet_add = OpenAddressingFlexSet.instance();
+        openAddressingFlexSet_contains = OpenAddressingFlexSet.instance();
+        openAddressingFlexSet_removeId = OpenAddressingFlexSet.instance();
+        openAddressingFlexSet_remove = OpenAddressingFlexSet.instance();
         for (int i = 0; i < numberOfElements; i++) {
             int j;
             switch (function) {
@@ -101,6 +116,10 @@ public class FlexSet_Benchmark {
                     ids[i] = new ComplexTestObject.IntegerId(j);
                     testObject = new ComplexTestObject(new ComplexTestObject.IntegerId(j));
                     break;
+                case 2:
+                    ids[i] = (long) j;
+                    testObject = new TestObject_7(j);
+                    break;
                 default:
                     throw new Exception();
             }
@@ -112,6 +131,9 @@ public class FlexSet_Benchmark {
             hashSet_remove.add(testObject);
             flexSet_removeId.add(testObject);
             flexSet_remove.add(testObject);
+            openAddressingFlexSet_contains.add(testObject);
+            openAddressingFlexSet_removeId.add(testObject);
+            openAddressingFlexSet_remove.add(testObject);
         }
     }
 
@@ -136,6 +158,13 @@ public class FlexSet_Benchmark {
         }
     }
 
+    @Benchmark
+    public void timeAdd_OpenAddressingFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(openAddressingFlexSet_add.add(testObjects[i]));
+        }
+    }
+
     @Benchmark
     public void timeContainsKey_HashMap(Blackhole bh) {
         for (int i = 0; i < numberOfElements; i++) {
@@ -150,6 +179,26 @@ public class FlexSet_Benchmark {
         }
     }
 
+    @Benchmark
+    public void timeGet_FlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(flexSet_contains.get(ids[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeGetAll_FlexSet(Blackhole bh) {
+        bh.consume(flexSet_contains.getAll(ids, out));
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void timeContainsKey_OpenAddressingFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(openAddressingFlexSet_contains.containsId(ids[i]));
+        }
+    }
+
     @Benchmark
     public void timeContainsValue_HashSet(Blackhole bh) {
         for (int i = 0; i < numberOfElements; i++) {
@@ -164,6 +213,42 @@ public class FlexSet_Benchmark {
         }
     }
 
+    @Benchmark
+    public void timeContainsValue_OpenAddressingFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(openAddressingFlexSet_contains.contains(testObjects[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeIterate_HashSet(Blackhole bh) {
+        for (Object testObject : hashSet_contains) {
+            bh.consume(testObject);
+        }
+    }
+
+    @Benchmark
+    public void timeIterate_FlexSet(Blackhole bh) {
+        for (Identifiable testObject : flexSet_contains) {
+            bh.consume(testObject);
+        }
+    }
+
+    @Benchmark
+    public void timeForEach_FlexSet(Blackhole bh) {
+        flexSet_contains.forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void timeForEachId_FlexSet(Blackhole bh) {
+        flexSet_contains.forEachId(bh::consume);
+    }
+
+    @Benchmark
+    public void timeForEachIndexed_FlexSet(Blackhole bh) {
+        flexSet_contains.forEachIndexed((testObject, i) -> bh.consume(i));
+    }
+
     @Benchmark
     public void timeRemoveId_HashMap(Blackhole bh) {
         for (int i = 0; i < numberOfElements; i++) {
@@ -178,6 +263,13 @@ public class FlexSet_Benchmark {
         }
     }
 
+    @Benchmark
+    public void timeRemoveId_OpenAddressingFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(openAddressingFlexSet_removeId.removeId(ids[i]));
+        }
+    }
+
     @Benchmark
     public void timeRemoveValue_HashSet(Blackhole bh) {
         for (int i = 0; i < numberOfElements; i++) {
@@ -192,4 +284,11 @@ public class FlexSet_Benchmark {
         }
     }
 
+    @Benchmark
+    public void timeRemoveValue_OpenAddressingFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(openAddressingFlexSet_remove.remove(testObjects[i]));
+        }
+    }
+
 }
@@ -9,7 +9,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static junit.framework.TestCase.assertTrue;
 
@@ -107,6 +111,18 @@ public class FlexSet_BoundaryTest {
         }
     }
 
+    @Test
+    public void shouldFindObjectAddedBetweenGreaterAndLowerHashCodesOfTheSameIdRef() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        int capacity = flexSet.capacity;
+        flexSet.add(new TestObject_0(capacity));
+        flexSet.add(new TestObject_0(3*capacity));
+        flexSet.add(new TestObject_0(2*capacity));
+        assertTrue(flexSet.containsId(capacity));
+        assertTrue(flexSet.containsId(2*capacity));
+        assertTrue(flexSet.containsId(3*capacity));
+    }
+
     @Test
     public void shouldAddObjectsEvenForConstantHashCode() {
         FlexSet<TestObject_5> flexSet = FlexSet.instance();
@@ -281,6 +297,49 @@ public class FlexSet_BoundaryTest {
         assertTrue(rebuildThreshold != flexSet.expansionThreshold);
     }
 
+    @Test
+    public void shouldPresizeOnceOnAddAll() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(-1));
+        List<TestObject_0> testObjects = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            testObjects.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.addAll(testObjects));
+        assertTrue(flexSet.capacity == 1024);
+        assertTrue(flexSet.size() == 1001);
+        for (int i=-1; i<1000; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+        assertTrue(!flexSet.addAll(testObjects));
+        assertTrue(flexSet.size() == 1001);
+    }
+
+    @Test
+    public void shouldNotPresizeForSumOfSizesOnAddAll() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        List<TestObject_0> testObjects = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            flexSet.add(new TestObject_0(i));
+            testObjects.add(new TestObject_0(i));
+        }
+        int capacity = flexSet.capacity;
+        assertTrue(!flexSet.addAll(testObjects));
+        assertTrue(flexSet.capacity == capacity);
+    }
+
+    @Test
+    public void shouldNotStartIncrementalRebuildOnAddAll() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        List<TestObject_0> testObjects = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            testObjects.add(new TestObject_0(i));
+        }
+        flexSet.addAll(testObjects);
+        assertTrue(flexSet.previousElements == null);
+        assertTrue(flexSet.size() == 1000);
+    }
+
     @Test
     public void shouldTreeifyAndUntreeifyRefs() {
         FlexSet<TestObject_0> flexSet = FlexSet.instance();
@@ -294,5 +353,239 @@ public class FlexSet_BoundaryTest {
         assertTrue(!(flexSet.elements[0] instanceof FlexSet.TreeIdRef));
     }
 
+    @Test
+    public void shouldThrowExceptionWhenCapacityAfterClearIsLessThan0() {
+        exception.expect(IllegalArgumentException.class);
+        FlexSet.builder().capacityAfterClear(-1).build();
+    }
+
+    @Test
+    public void shouldReuseBucketsOnClear() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i));
+            flexSet.add(new TestObject_0(i*1024));
+        }
+        assertTrue(flexSet.elements[0] instanceof FlexSet.TreeIdRef);
+        FlexSet.IdRef<TestObject_0>[] elements = flexSet.elements;
+        int index = 0;
+        while (elements[index].getClass() != FlexSet.IdRef.class || elements[index].e == null) {
+            index++;
+        }
+        FlexSet.IdRef<TestObject_0> idRef = elements[index];
+        int capacity = flexSet.capacity;
+        flexSet.clear();
+        assertTrue(flexSet.isEmpty());
+        assertTrue(flexSet.elements == elements && flexSet.elements[index] == idRef);
+        assertTrue(flexSet.capacity == capacity);
+        for (FlexSet.IdRef<TestObject_0> element : flexSet.elements) {
+            assertTrue(element.getClass() == FlexSet.IdRef.class && element.e == null && element.next == null && element.size == 0);
+        }
+        assertTrue(!flexSet.iterator().hasNext());
+        FlexSet<TestObject_0> refilled = FlexSet.instance();
+        for (int i=0; i<1024; i++) {
+            assertTrue(!flexSet.containsId(i*1024));
+            assertTrue(flexSet.add(new TestObject_0(i*1024)));
+            refilled.add(new TestObject_0(i*1024));
+        }
+        assertTrue(flexSet.equals(refilled) && flexSet.hashCode() == refilled.hashCode());
+    }
+
+    @Test
+    public void shouldShrinkToCapacityAfterClear() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().capacityAfterClear(100).build();
+        for (int i=0; i<1000; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        flexSet.clear();
+        assertTrue(flexSet.capacity == 128);
+        assertTrue(flexSet.expansionThreshold == 128);
+        for (int i=0; i<10; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        FlexSet.IdRef<TestObject_0>[] elements = flexSet.elements;
+        flexSet.clear();
+        assertTrue(flexSet.elements == elements);
+        assertTrue(flexSet.isEmpty() && flexSet.add(new TestObject_0(0)));
+    }
+
+    @Test
+    public void shouldTreeifyExactlyAtTreeifyThreshold() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<FlexSet.ID_REF_TREEIFY_THRESHOLD-1; i++) {
+            flexSet.add(new TestObject_0(i*1024));
+        }
+        assertTrue(flexSet.elements[0].getClass() == FlexSet.IdRef.class);
+        flexSet.add(new TestObject_0((FlexSet.ID_REF_TREEIFY_THRESHOLD-1)*1024));
+        assertTrue(flexSet.elements[0] instanceof FlexSet.TreeIdRef);
+        assertTrue(flexSet.elements[0].size == FlexSet.ID_REF_TREEIFY_THRESHOLD);
+        for (int i=0; i<FlexSet.ID_REF_TREEIFY_THRESHOLD; i++) {
+            assertTrue(flexSet.containsId(i*1024));
+        }
+    }
+
+    @Test
+    public void shouldUntreeifyExactlyAtUntreeifyThreshold() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<FlexSet.ID_REF_TREEIFY_THRESHOLD; i++) {
+            flexSet.add(new TestObject_0(i*1024));
+        }
+        for (int i=0; i<FlexSet.ID_REF_TREEIFY_THRESHOLD-FlexSet.ID_REF_UNTREEIFY_THRESHOLD-1; i++) {
+            flexSet.removeId(i*1024);
+        }
+        assertTrue(flexSet.elements[0] instanceof FlexSet.TreeIdRef);
+        flexSet.removeId((FlexSet.ID_REF_TREEIFY_THRESHOLD-FlexSet.ID_REF_UNTREEIFY_THRESHOLD-1)*1024);
+        assertTrue(flexSet.elements[0].getClass() == FlexSet.IdRef.class);
+        for (int i=FlexSet.ID_REF_TREEIFY_THRESHOLD-FlexSet.ID_REF_UNTREEIFY_THRESHOLD; i<FlexSet.ID_REF_TREEIFY_THRESHOLD; i++) {
+            assertTrue(flexSet.containsId(i*1024));
+        }
+    }
+
+    @Test
+    public void shouldKeepTreeBalancedForEqualHashCodes() {
+        FlexSet<TestObject_6> flexSet = FlexSet.instance();
+        int numberOfElements = 2048;
+        for (int i=0; i<numberOfElements; i++) {
+            assertTrue(flexSet.add(new TestObject_6(i)));
+        }
+        FlexSet.TreeIdRef<TestObject_6> treeIdRef = (FlexSet.TreeIdRef<TestObject_6>) flexSet.elements[0];
+        assertTrue(FlexSet.TreeIdRef.height(treeIdRef.root) <= 1.45 * (Math.log(numberOfElements + 2) / Math.log(2)));
+        for (int i=0; i<numberOfElements; i+=2) {
+            assertTrue(flexSet.removeId(new TestObject_6.Id(i)) != null);
+        }
+        treeIdRef = (FlexSet.TreeIdRef<TestObject_6>) flexSet.elements[0];
+        assertTrue(FlexSet.TreeIdRef.height(treeIdRef.root) <= 1.45 * (Math.log(numberOfElements / 2 + 2) / Math.log(2)));
+        for (int i=0; i<numberOfElements; i++) {
+            assertTrue(flexSet.containsId(new TestObject_6.Id(i)) == (i % 2 == 1));
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForClusteredHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        Set<TestObject_0> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            TestObject_0 testObject = new TestObject_0(generator.nextInt(2048) * 4096);
+            if (generator.nextInt(3) > 0) {
+                assertTrue(flexSet.add(testObject) == set.add(testObject));
+            } else {
+                assertTrue((flexSet.removeId(testObject.getId()) != null) == set.remove(testObject));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        assertTrue(new HashSet<>(flexSet).equals(set));
+        for (TestObject_0 testObject : set) {
+            assertTrue(flexSet.get(testObject.getId()) != null);
+        }
+    }
+
+    @Test
+    public void shouldOrderCollidingComparableIdsInTree() {
+        List<String> ids = collidingStrings(12);
+        Collections.shuffle(ids);
+        FlexSet<IdWrapper<String, Integer>> flexSet = FlexSet.instance();
+        for (int i=0; i<ids.size(); i++) {
+            assertTrue(flexSet.add(new IdWrapper<>(ids.get(i), i)));
+        }
+        FlexSet.TreeIdRef<IdWrapper<String, Integer>> treeIdRef = findTreeIdRef(flexSet);
+        List<String> orderedIds = new ArrayList<>();
+        collectInOrder(treeIdRef.root, orderedIds);
+        for (int i=1; i<orderedIds.size(); i++) {
+            assertTrue(orderedIds.get(i-1).compareTo(orderedIds.get(i)) < 0);
+        }
+        for (int i=0; i<ids.size(); i+=2) {
+            assertTrue(flexSet.removeId(ids.get(i)) != null);
+        }
+        for (int i=0; i<ids.size(); i++) {
+            assertTrue(flexSet.containsId(ids.get(i)) == (i % 2 == 1));
+        }
+    }
+
+    @Test
+    public void shouldOrderIdsOfDifferentClassesByClass() {
+        assertTrue(FlexSet.TreeIdRef.compareIds("Aa", "BB") < 0);
+        assertTrue(FlexSet.TreeIdRef.compareIds("Aa", 2112) > 0);
+        assertTrue(FlexSet.TreeIdRef.compareIds(2112, "BB") < 0);
+        assertTrue(FlexSet.TreeIdRef.compareIds(new TestObject_6.Id(0), new TestObject_6.Id(1)) == 0);
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForEqualHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        FlexSet<TestObject_6> flexSet = FlexSet.instance();
+        Set<Integer> set = new HashSet<>();
+        for (int i=0; i<16384; i++) {
+            int id = generator.nextInt(64);
+            if (generator.nextInt(3) > 0) {
+                assertTrue(flexSet.add(new TestObject_6(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeId(new TestObject_6.Id(id)) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        int iterated = 0;
+        for (TestObject_6 testObject : flexSet) {
+            assertTrue(set.contains(testObject.getId().id));
+            iterated++;
+        }
+        assertTrue(iterated == set.size());
+    }
+
+    @Test
+    public void shouldFindIdsOfDifferentClassesWithEqualHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        List<Object> ids = new ArrayList<>(collidingStrings(5));
+        int hashCode = ids.get(0).hashCode();
+        ids.add((long) hashCode);
+        ids.add(hashCode);
+        for (int trial=0; trial<1000; trial++) {
+            FlexSet<IdWrapper<Object, Integer>> flexSet = FlexSet.instance();
+            Set<Object> set = new HashSet<>();
+            for (int i=0; i<64; i++) {
+                Object id = ids.get(generator.nextInt(ids.size()));
+                if (generator.nextInt(4) > 0) {
+                    assertTrue(flexSet.add(new IdWrapper<>(id, i)) == set.add(id));
+                } else {
+                    assertTrue((flexSet.removeId(id) != null) == set.remove(id));
+                }
+            }
+            assertTrue(flexSet.size() == set.size());
+            for (Object id : ids) {
+                assertTrue(flexSet.containsId(id) == set.contains(id));
+            }
+        }
+    }
+
+    // every concatenation of the same number of "Aa" and "BB" blocks has the same hash code
+    private static List<String> collidingStrings(int numberOfBlocks) {
+        List<String> strings = new ArrayList<>();
+        for (int i=0; i<1<<numberOfBlocks; i++) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int j=0; j<numberOfBlocks; j++) {
+                stringBuilder.append((i & 1<<j) == 0 ? "Aa" : "BB");
+            }
+            strings.add(stringBuilder.toString());
+        }
+        return strings;
+    }
+
+    private static <E extends Identifiable> FlexSet.TreeIdRef<E> findTreeIdRef(FlexSet<E> flexSet) {
+        for (FlexSet.IdRef<E> idRef : flexSet.elements) {
+            if (idRef instanceof FlexSet.TreeIdRef) {
+                return (FlexSet.TreeIdRef<E>) idRef;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    private static void collectInOrder(FlexSet.TreeNode<IdWrapper<String, Integer>> treeNode, List<String> ids) {
+        if (treeNode != null) {
+            collectInOrder(treeNode.left, ids);
+            ids.add(treeNode.e.getId());
+            collectInOrder(treeNode.right, ids);
+        }
+    }
+
 
 }
@@ -0,0 +1,64 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// loading numberOfElements elements into a set created with the default capacity
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_BulkLoadBenchmark {
+
+    private List<TestObject_0> testObjects;
+    private TestObject_0[] testObjectsArray;
+
+    @Param({"65536", "1048576", "8388608"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new ArrayList<>(numberOfElements);
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects.add(new TestObject_0(i));
+        }
+        testObjectsArray = testObjects.toArray(new TestObject_0[0]);
+    }
+
+    @Benchmark
+    public Object timeAddLoop_FlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet.add(testObject);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public Object timeAddAll_FlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.addAll(testObjects);
+        return flexSet;
+    }
+
+    @Benchmark
+    public Object timeParallelFromArray_FlexSet() {
+        return FlexSet.parallelFromArray(testObjectsArray);
+    }
+
+    @Benchmark
+    public Object timeAddAll_HashSet() {
+        HashSet<TestObject_0> hashSet = new HashSet<>();
+        hashSet.addAll(testObjects);
+        return hashSet;
+    }
+
+}
@@ -0,0 +1,74 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// a scratch set cleared and refilled over and over, run with -prof gc to see the allocation per cycle
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_ClearBenchmark {
+
+    private TestObject_0[] testObjects;
+    private FlexSet<TestObject_0> flexSet;
+    private FlexSet<TestObject_0> flexSet_capacityAfterClear;
+    private HashSet<TestObject_0> hashSet;
+
+    @Param({"16", "256", "4096"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_0[numberOfElements];
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects[i] = new TestObject_0(i);
+        }
+        flexSet = FlexSet.instance();
+        flexSet_capacityAfterClear = FlexSet.builder().capacityAfterClear(16).build();
+        hashSet = new HashSet<>();
+    }
+
+    @Benchmark
+    public Object timeClearAndRefill_FlexSet() {
+        flexSet.clear();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet.add(testObject);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public Object timeClearAndRefill_FlexSetWithCapacityAfterClear() {
+        flexSet_capacityAfterClear.clear();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet_capacityAfterClear.add(testObject);
+        }
+        return flexSet_capacityAfterClear;
+    }
+
+    @Benchmark
+    public Object timeNewAndFill_FlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet.add(testObject);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public Object timeClearAndRefill_HashSet() {
+        hashSet.clear();
+        for (TestObject_0 testObject : testObjects) {
+            hashSet.add(testObject);
+        }
+        return hashSet;
+    }
+
+}
@@ -0,0 +1,89 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// all ids are strings made of the same number of "Aa" and "BB" blocks, so they all share one hash code and land in one bucket
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_CollisionBenchmark {
+
+    private List<IdWrapper<String, Integer>> elements;
+    private FlexSet<IdWrapper<String, Integer>> flexSet;
+    private HashMap<String, IdWrapper<String, Integer>> hashMap;
+
+    // 2^numberOfBlocks colliding ids
+    @Param({"10", "12", "14"})
+    private int numberOfBlocks;
+
+    @Setup
+    public void setUp() {
+        elements = new ArrayList<>();
+        for (int i = 0; i < 1 << numberOfBlocks; i++) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int j = 0; j < numberOfBlocks; j++) {
+                stringBuilder.append((i & 1 << j) == 0 ? "Aa" : "BB");
+            }
+            elements.add(new IdWrapper<>(stringBuilder.toString(), i));
+        }
+        Collections.shuffle(elements);
+        flexSet = FlexSet.instance();
+        hashMap = new HashMap<>();
+        for (IdWrapper<String, Integer> element : elements) {
+            flexSet.add(element);
+            hashMap.put(element.getId(), element);
+        }
+    }
+
+    @Benchmark
+    public Object timeAdd_FlexSet() {
+        FlexSet<IdWrapper<String, Integer>> flexSet = FlexSet.instance();
+        for (IdWrapper<String, Integer> element : elements) {
+            flexSet.add(element);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public Object timeAdd_HashMap() {
+        HashMap<String, IdWrapper<String, Integer>> hashMap = new HashMap<>();
+        for (IdWrapper<String, Integer> element : elements) {
+            hashMap.put(element.getId(), element);
+        }
+        return hashMap;
+    }
+
+    @Benchmark
+    public int timeGet_FlexSet() {
+        int found = 0;
+        for (IdWrapper<String, Integer> element : elements) {
+            if (flexSet.get(element.getId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int timeGet_HashMap() {
+        int found = 0;
+        for (IdWrapper<String, Integer> element : elements) {
+            if (hashMap.get(element.getId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,122 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.TreeMap;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// function as in idSet.FlexSet_Benchmark, 3 stands for multiples of 4096, run main to print the bucket length distribution
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_HashStrategyBenchmark {
+
+    private static final String[] HASH_STRATEGIES = {"DEFAULT", "MURMUR", "FX", "SEEDED"};
+    private static final int[] FUNCTIONS = {0, 1, 2, 3};
+
+    public static void main(String[] args) {
+        int numberOfElements = args.length > 0 ? Integer.parseInt(args[0]) : 65536;
+        for (int function : FUNCTIONS) {
+            for (String hashStrategy : HASH_STRATEGIES) {
+                FlexSet<TestObject_0> flexSet = FlexSet.builder().hashStrategy(hashStrategy(hashStrategy)).build();
+                for (TestObject_0 testObject : testObjects(numberOfElements, function)) {
+                    flexSet.add(testObject);
+                }
+                // bucket length -> number of buckets
+                TreeMap<Integer, Integer> distribution = new TreeMap<>();
+                for (FlexSet.IdRef<TestObject_0> idRef : flexSet.elements) {
+                    distribution.merge(idRef.size, 1, Integer::sum);
+                }
+                System.out.println(String.format("function=%s hashStrategy=%s capacity=%s longest=%s %s",
+                        function, hashStrategy, flexSet.capacity, distribution.lastKey(), distribution));
+            }
+        }
+    }
+
+    private TestObject_0[] testObjects;
+    private FlexSet<TestObject_0> flexSet_get;
+
+    @Param({"4096", "65536", "524288"})
+    private int numberOfElements;
+
+    @Param({"0", "3"})
+    private int function;
+
+    @Param({"DEFAULT", "MURMUR", "FX", "SEEDED"})
+    private String hashStrategy;
+
+    @Setup
+    public void setUp() {
+        testObjects = testObjects(numberOfElements, function);
+        flexSet_get = FlexSet.builder().hashStrategy(hashStrategy(hashStrategy)).build();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet_get.add(testObject);
+        }
+    }
+
+    @Benchmark
+    public Object timeAdd_FlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().hashStrategy(hashStrategy(hashStrategy)).build();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet.add(testObject);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public int timeGet_FlexSet() {
+        int found = 0;
+        for (TestObject_0 testObject : testObjects) {
+            if (flexSet_get.get(testObject.getId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static HashStrategy hashStrategy(String name) {
+        switch (name) {
+            case "DEFAULT":
+                return HashStrategy.DEFAULT;
+            case "MURMUR":
+                return HashStrategy.MURMUR;
+            case "FX":
+                return HashStrategy.FX;
+            case "SEEDED":
+                return HashStrategy.seeded();
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static TestObject_0[] testObjects(int numberOfElements, int function) {
+        TestObject_0[] testObjects = new TestObject_0[numberOfElements];
+        for (int i = 0; i < numberOfElements; i++) {
+            int j;
+            switch (function) {
+                case 0:
+                    j = i;
+                    break;
+                case 1:
+                    j = i*i;
+                    break;
+                case 2:
+                    j = ((i%2)*2-1)*i/2;
+                    break;
+                case 3:
+                    j = i*4096;
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.valueOf(function));
+            }
+            testObjects[i] = new TestObject_0(j);
+        }
+        return testObjects;
+    }
+
+}
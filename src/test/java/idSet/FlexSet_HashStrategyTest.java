@@ -0,0 +1,101 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_HashStrategyTest {
+
+    private static final HashStrategy[] HASH_STRATEGIES = {HashStrategy.DEFAULT, HashStrategy.MURMUR, HashStrategy.FX, HashStrategy.seeded()};
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenHashStrategyIsNull() {
+        exception.expect(NullPointerException.class);
+        FlexSet.builder().hashStrategy(null);
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForEveryHashStrategy() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        for (HashStrategy hashStrategy : HASH_STRATEGIES) {
+            FlexSet<TestObject_0> flexSet = FlexSet.builder().hashStrategy(hashStrategy).build();
+            Set<Integer> set = new HashSet<>();
+            for (int i=0; i<65536; i++) {
+                int id = generator.nextInt(4096) * 4096;
+                if (generator.nextInt(3) > 0) {
+                    assertTrue(flexSet.add(new TestObject_0(id)) == set.add(id));
+                } else {
+                    assertTrue((flexSet.removeId(id) != null) == set.remove(id));
+                }
+                assertTrue(flexSet.size() == set.size());
+            }
+            for (Integer id : set) {
+                assertTrue(flexSet.containsId(id));
+            }
+        }
+    }
+
+    @Test
+    public void shouldSpreadMultiplesOfLargePowersOfTwoBetterThanDefaultStrategy() {
+        int longestDefaultBucket = longestBucket(HashStrategy.DEFAULT);
+        assertTrue(longestBucket(HashStrategy.MURMUR) < longestDefaultBucket);
+        assertTrue(longestBucket(HashStrategy.FX) < longestDefaultBucket);
+        assertTrue(longestBucket(HashStrategy.seeded(42)) < longestDefaultBucket);
+    }
+
+    @Test
+    public void shouldBeEqualRegardlessOfHashStrategy() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.builder().hashStrategy(HashStrategy.MURMUR).build();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i * 4096));
+            flexSet1.add(new TestObject_0(i * 4096));
+        }
+        assertTrue(flexSet0.equals(flexSet1) && flexSet1.equals(flexSet0));
+        assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
+    }
+
+    @Test
+    public void shouldCombineSetsWithDifferentHashStrategies() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.builder().hashStrategy(HashStrategy.seeded()).build();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.builder().hashStrategy(HashStrategy.FX).build();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(i + 500));
+        }
+        FlexSet<TestObject_0> union = flexSet0.union(flexSet1);
+        FlexSet<TestObject_0> intersection = flexSet0.intersect(flexSet1);
+        FlexSet<TestObject_0> difference = flexSet0.difference(flexSet1);
+        assertTrue(union.size() == 1500 && intersection.size() == 500 && difference.size() == 500);
+        for (int i=0; i<1500; i++) {
+            assertTrue(union.containsId(i));
+            assertTrue(intersection.containsId(i) == (i >= 500 && i < 1000));
+            assertTrue(difference.containsId(i) == (i < 500));
+        }
+    }
+
+    private static int longestBucket(HashStrategy hashStrategy) {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().hashStrategy(hashStrategy).build();
+        for (int i=0; i<4096; i++) {
+            flexSet.add(new TestObject_0(i * 4096));
+        }
+        int longestBucket = 0;
+        for (FlexSet.IdRef<TestObject_0> idRef : flexSet.elements) {
+            longestBucket = Math.max(longestBucket, idRef.size);
+        }
+        return longestBucket;
+    }
+
+}
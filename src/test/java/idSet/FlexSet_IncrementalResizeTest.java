@@ -0,0 +1,163 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_IncrementalResizeTest {
+
+    @Test
+    public void shouldKeepPreviousElementsWhileExpanding() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int capacity = flexSet.capacity;
+        int expansionThreshold = flexSet.expansionThreshold;
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.capacity == capacity*2);
+        assertTrue(flexSet.previousElements != null);
+        for (int i=0; i<expansionThreshold+1; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+    }
+
+    @Test
+    public void shouldMigrateBoundedNumberOfBucketsPerOperation() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int capacity = flexSet.capacity;
+        int expansionThreshold = flexSet.expansionThreshold;
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.migrationIndex == 0);
+        flexSet.get(0);
+        assertTrue(flexSet.migrationIndex == FlexSet.INCREMENTAL_REBUILD_STEP);
+        for (int i=1; i<capacity/FlexSet.INCREMENTAL_REBUILD_STEP; i++) {
+            assertTrue(flexSet.previousElements != null);
+            flexSet.get(i);
+        }
+        assertTrue(flexSet.previousElements == null);
+    }
+
+    @Test
+    public void shouldShrinkIncrementally() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        for (int i=0; i<129; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        int capacity = flexSet.capacity;
+        for (int i=0; i<129; i++) {
+            assertTrue(flexSet.remove(new TestObject_0(i)));
+            for (int j=i+1; j<129; j++) {
+                assertTrue(flexSet.containsId(j));
+            }
+        }
+        assertTrue(flexSet.isEmpty());
+        assertTrue(flexSet.capacity != capacity);
+    }
+
+    @Test
+    public void shouldFinishMigrationBeforeNextResize() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        for (int i=0; i<4096; i++) {
+            assertMigratedBeforeResize(flexSet, () -> flexSet.add(new TestObject_0(flexSet.size())));
+        }
+        int capacity = flexSet.capacity;
+        while (flexSet.capacity == capacity) {
+            assertMigratedBeforeResize(flexSet, () -> flexSet.removeId(flexSet.size() - 1));
+        }
+        for (int i=0; i<4096; i++) {
+            assertMigratedBeforeResize(flexSet, () -> flexSet.add(new TestObject_0(flexSet.size())));
+        }
+    }
+
+    private static void assertMigratedBeforeResize(FlexSet<TestObject_0> flexSet, Runnable operation) {
+        int capacity = flexSet.capacity;
+        boolean migrating = flexSet.previousElements != null;
+        operation.run();
+        assertTrue(flexSet.capacity == capacity || !migrating);
+    }
+
+    @Test
+    public void shouldIterateOverAllElementsDuringMigration() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int expansionThreshold = flexSet.expansionThreshold;
+        Set<TestObject_0> set = new HashSet<>();
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+            set.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.previousElements != null);
+        Set<TestObject_0> iterated = new HashSet<>();
+        for (TestObject_0 testObject : flexSet) {
+            iterated.add(testObject);
+        }
+        assertTrue(iterated.equals(set));
+    }
+
+    @Test
+    public void shouldGetAllDuringMigration() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int expansionThreshold = flexSet.expansionThreshold;
+        Object[] ids = new Object[expansionThreshold+1];
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+            ids[i] = i;
+        }
+        assertTrue(flexSet.previousElements != null);
+        assertTrue(flexSet.getAll(ids, new TestObject_0[ids.length]) == ids.length);
+    }
+
+    @Test
+    public void shouldClearDuringMigration() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int expansionThreshold = flexSet.expansionThreshold;
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        flexSet.clear();
+        assertTrue(flexSet.isEmpty());
+        assertTrue(flexSet.previousElements == null);
+        assertTrue(!flexSet.containsId(0));
+        assertTrue(flexSet.add(new TestObject_0(0)));
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForRandomAdditionsAndRemovals() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        Set<Integer> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            int id = generator.nextInt(4096);
+            if (generator.nextInt(3) > 0) {
+                assertTrue(flexSet.add(new TestObject_0(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeId(id) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        for (Integer id : set) {
+            assertTrue(flexSet.containsId(id));
+        }
+    }
+
+    @Test
+    public void shouldBeEqualToSetRebuiltAtOnce() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.builder().incrementalResize(true).build();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<100; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet0.equals(flexSet1) && flexSet1.equals(flexSet0));
+        assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
+    }
+
+}
@@ -0,0 +1,170 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_IteratorTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenAddedWhileIterating() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(100);
+        Iterator<TestObject_0> iterator = flexSet.iterator();
+        iterator.next();
+        flexSet.add(new TestObject_0(-1));
+        exception.expect(ConcurrentModificationException.class);
+        iterator.next();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemovedWhileIterating() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(100);
+        Iterator<TestObject_0> iterator = flexSet.iterator();
+        iterator.next();
+        flexSet.removeId(50);
+        exception.expect(ConcurrentModificationException.class);
+        iterator.remove();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenModifiedInForEach() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(100);
+        exception.expect(ConcurrentModificationException.class);
+        flexSet.forEach(testObject -> flexSet.removeId(testObject.getId()));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemovedTwice() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(100);
+        Iterator<TestObject_0> iterator = flexSet.iterator();
+        iterator.next();
+        iterator.remove();
+        exception.expect(IllegalStateException.class);
+        iterator.remove();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenIteratedPastTheEnd() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(1);
+        Iterator<TestObject_0> iterator = flexSet.iterator();
+        iterator.next();
+        exception.expect(NoSuchElementException.class);
+        iterator.next();
+    }
+
+    @Test
+    public void shouldRemoveAllElementsThroughIterator() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(2048);
+        int capacity = flexSet.capacity;
+        int removed = 0;
+        for (Iterator<TestObject_0> iterator = flexSet.iterator(); iterator.hasNext(); ) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+        assertTrue(removed == 2048);
+        assertTrue(flexSet.isEmpty());
+        assertTrue(flexSet.capacity == capacity);
+        assertTrue(flexSet.equals(FlexSet.instance()) && flexSet.hashCode() == 0);
+        for (FlexSet.IdRef<TestObject_0> idRef : flexSet.elements) {
+            assertTrue(idRef.size == 0 && idRef.next == null);
+        }
+    }
+
+    @Test
+    public void shouldVisitEveryElementOnceWhileRemovingThroughIterator() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        FlexSet<TestObject_0> flexSet = filledFlexSet(2048);
+        Set<TestObject_0> set = new HashSet<>(flexSet);
+        Set<TestObject_0> visited = new HashSet<>();
+        for (Iterator<TestObject_0> iterator = flexSet.iterator(); iterator.hasNext(); ) {
+            TestObject_0 testObject = iterator.next();
+            assertTrue(visited.add(testObject));
+            if (generator.nextBoolean()) {
+                iterator.remove();
+                set.remove(testObject);
+            }
+        }
+        assertTrue(visited.size() == 2048);
+        assertTrue(flexSet.size() == set.size());
+        assertTrue(new HashSet<>(flexSet).equals(set));
+        for (TestObject_0 testObject : set) {
+            assertTrue(flexSet.containsId(testObject.getId()));
+        }
+    }
+
+    @Test
+    public void shouldRemoveThroughIdSetView() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(200);
+        flexSet.idSet().removeIf(id -> (Integer) id % 2 == 0);
+        assertTrue(flexSet.size() == 100);
+        for (int i=0; i<100; i++) {
+            assertTrue(!flexSet.containsId(i*2));
+            assertTrue(flexSet.containsId(i*1024+1));
+        }
+    }
+
+    @Test
+    public void shouldRemoveIfAndShrinkOnce() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<65536; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.removeIf(testObject -> testObject.getId() % 10 < 8));
+        assertTrue(flexSet.size() == 13106);
+        assertTrue(flexSet.capacity == 16384);
+        for (int i=0; i<65536; i++) {
+            assertTrue(flexSet.containsId(i) == (i % 10 >= 8));
+        }
+        assertTrue(!flexSet.removeIf(testObject -> testObject.getId() < 0));
+    }
+
+    @Test
+    public void shouldUntreeifyOnRemoveIf() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<16; i++) {
+            flexSet.add(new TestObject_0(i*1024));
+        }
+        assertTrue(flexSet.elements[0] instanceof FlexSet.TreeIdRef);
+        flexSet.removeIf(testObject -> testObject.getId() >= 3*1024);
+        assertTrue(flexSet.elements[0].getClass() == FlexSet.IdRef.class);
+        assertTrue(flexSet.size() == 3);
+        for (int i=0; i<3; i++) {
+            assertTrue(flexSet.containsId(i*1024));
+        }
+    }
+
+    @Test
+    public void shouldRetainAll() {
+        FlexSet<TestObject_0> flexSet = filledFlexSet(1000);
+        List<TestObject_0> retained = new ArrayList<>();
+        for (int i=0; i<500; i+=3) {
+            retained.add(new TestObject_0(i*1024+1));
+        }
+        assertTrue(flexSet.retainAll(retained));
+        assertTrue(flexSet.size() == retained.size());
+        assertTrue(flexSet.containsAll(retained));
+        assertTrue(!flexSet.retainAll(retained));
+    }
+
+    // colliding ids make treeified buckets, the other ones plain chains
+    private static FlexSet<TestObject_0> filledFlexSet(int numberOfElements) {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<numberOfElements; i++) {
+            flexSet.add(new TestObject_0(i % 2 == 0 ? i : i/2*1024+1));
+        }
+        return flexSet;
+    }
+
+}
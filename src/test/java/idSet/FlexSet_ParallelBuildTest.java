@@ -0,0 +1,69 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_ParallelBuildTest {
+
+    @Test
+    public void shouldBuildSetEqualToSequentiallyBuiltOne() {
+        TestObject_0[] testObjects = testObjects(FlexSet.PARALLEL_BUILD_THRESHOLD * 8);
+        FlexSet<TestObject_0> flexSet = FlexSet.parallelFromArray(testObjects);
+        FlexSet<TestObject_0> expected = FlexSet.instance();
+        expected.addAll(Arrays.asList(testObjects));
+        assertTrue(flexSet.size() == testObjects.length);
+        assertTrue(flexSet.equals(expected));
+        for (TestObject_0 testObject : testObjects) {
+            assertTrue(flexSet.get(testObject.getId()) == testObject);
+        }
+    }
+
+    @Test
+    public void shouldSkipDuplicatesWhenBuildingInParallel() {
+        TestObject_0[] testObjects = new TestObject_0[FlexSet.PARALLEL_BUILD_THRESHOLD * 2];
+        for (int i=0; i<testObjects.length; i++) {
+            testObjects[i] = new TestObject_0(i / 2);
+        }
+        FlexSet<TestObject_0> flexSet = FlexSet.parallelFromArray(testObjects);
+        assertTrue(flexSet.size() == testObjects.length / 2);
+        for (int i=0; i<testObjects.length / 2; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+    }
+
+    @Test
+    public void shouldBuildSmallSetSequentially() {
+        FlexSet<TestObject_0> flexSet = FlexSet.parallelFromArray(testObjects(10));
+        assertTrue(flexSet.size() == 10);
+        assertTrue(FlexSet.parallelFromArray().isEmpty());
+    }
+
+    @Test
+    public void shouldCollectParallelStream() {
+        FlexSet<TestObject_0> flexSet = IntStream.range(0, FlexSet.PARALLEL_BUILD_THRESHOLD * 4).parallel()
+                .mapToObj(TestObject_0::new)
+                .collect(FlexSet.toFlexSet());
+        assertTrue(flexSet.size() == FlexSet.PARALLEL_BUILD_THRESHOLD * 4);
+        for (int i=0; i<FlexSet.PARALLEL_BUILD_THRESHOLD * 4; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+        assertTrue(flexSet.add(new TestObject_0(-1)));
+        assertTrue(flexSet.removeId(0) != null);
+    }
+
+    private TestObject_0[] testObjects(int numberOfElements) {
+        TestObject_0[] testObjects = new TestObject_0[numberOfElements];
+        for (int i=0; i<numberOfElements; i++) {
+            testObjects[i] = new TestObject_0(i * 7);
+        }
+        return testObjects;
+    }
+
+}
@@ -0,0 +1,51 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// per operation latency distribution (see the percentiles) while the set grows to numberOfElements and shrinks back to empty
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_ResizeBenchmark {
+
+    private TestObject_0[] testObjects;
+    private FlexSet<TestObject_0> flexSet;
+    private int index;
+    private boolean adding;
+
+    @Param({"65536", "524288"})
+    private int numberOfElements;
+
+    @Param({"false", "true"})
+    private boolean incrementalResize;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_0[numberOfElements];
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects[i] = new TestObject_0(i);
+        }
+        flexSet = FlexSet.builder().incrementalResize(incrementalResize).build();
+        index = 0;
+        adding = true;
+    }
+
+    @Benchmark
+    public Object timeAddOrRemoveId_FlexSet() {
+        if (adding) {
+            boolean result = flexSet.add(testObjects[index++]);
+            adding = index < numberOfElements;
+            return result;
+        }
+        Object result = flexSet.removeId(testObjects[--index].getId());
+        adding = index == 0;
+        return result;
+    }
+
+}
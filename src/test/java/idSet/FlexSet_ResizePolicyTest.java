@@ -0,0 +1,170 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_ResizePolicyTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenMaxLoadFactorIsNotPositive() {
+        exception.expect(IllegalArgumentException.class);
+        FlexSet.builder().maxLoadFactor(0).build();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMaxLoadFactorIsNaN() {
+        exception.expect(IllegalArgumentException.class);
+        FlexSet.builder().maxLoadFactor(Float.NaN).build();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMinLoadFactorIsNotLessThanMaxLoadFactor() {
+        exception.expect(IllegalArgumentException.class);
+        FlexSet.builder().maxLoadFactor(0.5f).minLoadFactor(0.5f).build();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenHysteresisIsNotLessThan1() {
+        exception.expect(IllegalArgumentException.class);
+        FlexSet.builder().hysteresis(1).build();
+    }
+
+    @Test
+    public void shouldExpandAtMaxLoadFactor() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().initialCapacity(100).maxLoadFactor(0.5f).build();
+        assertTrue(flexSet.capacity == 256);
+        assertTrue(flexSet.expansionThreshold == 128);
+        for (int i=0; i<128; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.capacity == 256);
+        flexSet.add(new TestObject_0(128));
+        assertTrue(flexSet.capacity == 512);
+        assertTrue(flexSet.expansionThreshold == 256);
+    }
+
+    @Test
+    public void shouldShrinkAtMinLoadFactor() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().initialCapacity(128).minLoadFactor(0.5f).build();
+        for (int i=0; i<128; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        for (int i=0; i<64; i++) {
+            flexSet.removeId(i);
+        }
+        assertTrue(flexSet.capacity == 128);
+        flexSet.removeId(64);
+        assertTrue(flexSet.capacity == 64);
+        for (int i=65; i<128; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+    }
+
+    @Test
+    public void shouldNotShrinkWhenShrinkIsDisabled() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().shrink(false).build();
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        int capacity = flexSet.capacity;
+        for (int i=0; i<1024; i++) {
+            flexSet.removeId(i);
+        }
+        assertTrue(flexSet.isEmpty());
+        assertTrue(flexSet.capacity == capacity);
+    }
+
+    @Test
+    public void shouldNotExpandRightAfterShrinkingWithHysteresis() {
+        assertTrue(countCapacityChangesWhileOscillating(FlexSet.builder().build()) == 2);
+        assertTrue(countCapacityChangesWhileOscillating(FlexSet.builder().hysteresis(0.5f).build()) == 1);
+    }
+
+    @Test
+    public void shouldEnsureCapacity() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().maxLoadFactor(0.75f).build();
+        flexSet.add(new TestObject_0(-1));
+        flexSet.ensureCapacity(1000);
+        int capacity = flexSet.capacity;
+        assertTrue(capacity == 2048);
+        for (int i=0; i<999; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.capacity == capacity);
+        assertTrue(flexSet.size() == 1000);
+        flexSet.ensureCapacity(10);
+        assertTrue(flexSet.capacity == capacity);
+    }
+
+    @Test
+    public void shouldTrimToSize() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().shrink(false).build();
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        for (int i=0; i<1000; i++) {
+            flexSet.removeId(i);
+        }
+        flexSet.trimToSize();
+        assertTrue(flexSet.capacity == 32);
+        for (int i=1000; i<1024; i++) {
+            assertTrue(flexSet.containsId(i));
+        }
+        flexSet.clear();
+        flexSet.trimToSize();
+        assertTrue(flexSet.add(new TestObject_0(0)) && flexSet.add(new TestObject_0(1)));
+        assertTrue(flexSet.containsId(0) && flexSet.containsId(1));
+    }
+
+    @Test
+    public void shouldKeepLoadFactorsInResultOfSetAlgebra() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.builder().maxLoadFactor(0.5f).build();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.builder().maxLoadFactor(0.5f).build();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(i + 1000));
+        }
+        FlexSet<TestObject_0> union = flexSet0.union(flexSet1);
+        assertTrue(union.size() == 2000);
+        assertTrue(union.expansionThreshold == union.capacity / 2);
+        assertTrue(union.size() <= union.expansionThreshold);
+    }
+
+    // removes elements just below the shrink threshold of a set of capacity 256 and adds a few back, again and again
+    private static int countCapacityChangesWhileOscillating(FlexSet<TestObject_0> flexSet) {
+        for (int i=0; i<256; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        for (int i=255; i>=64; i--) {
+            flexSet.removeId(i);
+        }
+        int capacityChanges = 0;
+        int capacity = flexSet.capacity;
+        for (int i=0; i<10; i++) {
+            for (int j=63; j>=60; j--) {
+                flexSet.removeId(j);
+                capacityChanges += flexSet.capacity != capacity ? 1 : 0;
+                capacity = flexSet.capacity;
+            }
+            for (int j=60; j<68; j++) {
+                flexSet.add(new TestObject_0(j));
+                capacityChanges += flexSet.capacity != capacity ? 1 : 0;
+                capacity = flexSet.capacity;
+            }
+            for (int j=67; j>=64; j--) {
+                flexSet.removeId(j);
+            }
+        }
+        return capacityChanges;
+    }
+
+}
@@ -0,0 +1,81 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.HashMap;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// idSet.FlexSet written with an idSet.ElementCodec compared with java serialization of a java.util.HashMap of the same
+// ids and values
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_SerializationBenchmark {
+
+    private static final ElementCodec<IdWrapper<Integer, Integer>> CODEC = new ElementCodec<IdWrapper<Integer, Integer>>() {
+        @Override
+        public void write(IdWrapper<Integer, Integer> idWrapper, DataOutput out) throws IOException {
+            out.writeInt(idWrapper.getId());
+            out.writeInt(idWrapper.getValue());
+        }
+
+        @Override
+        public IdWrapper<Integer, Integer> read(DataInput in) throws IOException {
+            return new IdWrapper<>(in.readInt(), in.readInt());
+        }
+    };
+
+    private FlexSet<IdWrapper<Integer, Integer>> flexSet;
+    private HashMap<Integer, Integer> hashMap;
+    private byte[] flexSetBytes;
+    private byte[] hashMapBytes;
+
+    @Param({"4096", "65536", "524288"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() throws IOException {
+        hashMap = new HashMap<>();
+        for (int i = 0; i < numberOfElements; i++) {
+            hashMap.put(i, -i);
+        }
+        flexSet = FlexSet.fromMap(hashMap);
+        flexSetBytes = timeWrite_FlexSet().toByteArray();
+        hashMapBytes = timeWrite_HashMap().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream timeWrite_FlexSet() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flexSet.writeTo(out, CODEC);
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream timeWrite_HashMap() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(hashMap);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Object timeRead_FlexSet() throws IOException {
+        return FlexSet.readFrom(new ByteArrayInputStream(flexSetBytes), CODEC);
+    }
+
+    @Benchmark
+    public Object timeRead_HashMap() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(hashMapBytes))) {
+            return objectIn.readObject();
+        }
+    }
+
+}
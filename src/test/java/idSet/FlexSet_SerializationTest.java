@@ -0,0 +1,190 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_SerializationTest {
+
+    private static final ElementCodec<TestObject_0> CODEC = MappedIdSet_Test.TEST_OBJECT_CODEC;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<100000; i++) {
+            flexSet.add(new TestObject_0(i * 4096));
+        }
+        FlexSet<TestObject_0> read = FlexSet.readFrom(new ByteArrayInputStream(write(flexSet)), CODEC);
+        assertTrue(read.equals(flexSet) && read.hashCode() == flexSet.hashCode());
+        assertTrue(read.capacity == flexSet.capacity);
+    }
+
+    @Test
+    public void shouldPreserveCapacity() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<10000; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        for (int i=5000; i<10000; i++) {
+            flexSet.removeId(i);
+        }
+        assertTrue(flexSet.capacity == 16384);
+        FlexSet<TestObject_0> read = FlexSet.readFrom(new ByteArrayInputStream(write(flexSet)), CODEC);
+        assertTrue(read.size() == 5000);
+        assertTrue(read.capacity == flexSet.capacity);
+    }
+
+    @Test
+    public void shouldNotTrustCapacityOfHeaderBeyondSize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] header = write(FlexSet.instance());
+        out.write(header, 0, 8);
+        out.writeInt(1);
+        out.writeInt(1 << 29);
+        out.writeInt(7);
+        FlexSet<TestObject_0> read = FlexSet.readFrom(new ByteArrayInputStream(bytes.toByteArray()), CODEC);
+        assertTrue(read.size() == 1 && read.containsId(7));
+        assertTrue(read.capacity <= 4);
+    }
+
+    @Test
+    public void shouldNotRebuildWhileReading() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().maxLoadFactor(4).build();
+        for (int i=0; i<10000; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        FlexSet<TestObject_0> read = FlexSet.readFrom(new ByteArrayInputStream(write(flexSet)), CODEC, FlexSet.builder().maxLoadFactor(0.5f));
+        assertTrue(read.size() == 10000);
+        assertTrue(read.capacity == 32768);
+        assertTrue(read.size() <= read.expansionThreshold);
+    }
+
+    @Test
+    public void shouldReadAndWriteThroughChannels() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flexSet.writeTo(Channels.newChannel(out), CODEC);
+        FlexSet<TestObject_0> read = FlexSet.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), CODEC);
+        assertTrue(read.equals(flexSet));
+    }
+
+    @Test
+    public void shouldReadSetsOneAfterAnotherFromChannel() throws IOException {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(-i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel writableChannel = Channels.newChannel(out);
+        flexSet0.writeTo(writableChannel, CODEC);
+        flexSet1.writeTo(writableChannel, CODEC);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(FlexSet.readFrom(channel, CODEC).equals(flexSet0));
+        assertTrue(FlexSet.readFrom(channel, CODEC).equals(flexSet1));
+        assertTrue(channel.read(ByteBuffer.allocate(1)) == -1);
+    }
+
+    @Test
+    public void shouldReadSetsOneAfterAnotherFromStream() throws IOException {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(-i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flexSet0.writeTo(out, CODEC);
+        flexSet1.writeTo(out, CODEC);
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertTrue(FlexSet.readFrom(in, CODEC).equals(flexSet0));
+        assertTrue(FlexSet.readFrom(in, CODEC).equals(flexSet1));
+        assertTrue(in.read() == -1);
+    }
+
+    @Test
+    public void shouldReadExactlyUpToLastElementOfDataInputStream() throws IOException {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(-i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flexSet0.writeTo(out, CODEC);
+        flexSet1.writeTo(out, CODEC);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(FlexSet.readFrom(in, CODEC).equals(flexSet0));
+        assertTrue(FlexSet.readFrom(in, CODEC).equals(flexSet1));
+        assertTrue(in.read() == -1);
+    }
+
+    @Test
+    public void shouldNotPresizeForSizeOfHeaderBeyondStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] header = write(FlexSet.instance());
+        out.write(header, 0, 8);
+        out.writeInt(1 << 29);
+        out.writeInt(1 << 29);
+        exception.expect(EOFException.class);
+        FlexSet.readFrom(new ByteArrayInputStream(bytes.toByteArray()), CODEC);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenStreamDoesNotContainFlexSet() throws IOException {
+        exception.expect(IOException.class);
+        FlexSet.readFrom(new ByteArrayInputStream(new byte[16]), CODEC);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenStreamIsTruncated() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        byte[] bytes = write(flexSet);
+        exception.expect(EOFException.class);
+        FlexSet.readFrom(new ByteArrayInputStream(bytes, 0, bytes.length - 1), CODEC);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenStreamContainsDuplicateIds() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] header = write(FlexSet.instance());
+        out.write(header, 0, 8);
+        out.writeInt(2);
+        out.writeInt(16);
+        out.writeInt(7);
+        out.writeInt(7);
+        exception.expect(IOException.class);
+        FlexSet.readFrom(new ByteArrayInputStream(bytes.toByteArray()), CODEC);
+    }
+
+    private static byte[] write(FlexSet<TestObject_0> flexSet) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flexSet.writeTo(out, CODEC);
+        return out.toByteArray();
+    }
+
+}
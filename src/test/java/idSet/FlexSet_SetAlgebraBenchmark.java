@@ -0,0 +1,101 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// two sets sharing nine tenths of their ids, bucket merging compared with probing one set element by element
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class FlexSet_SetAlgebraBenchmark {
+
+    private FlexSet<TestObject_0> flexSet0;
+    private FlexSet<TestObject_0> flexSet1;
+    private HashSet<TestObject_0> hashSet0;
+    private HashSet<TestObject_0> hashSet1;
+
+    @Param({"65536", "1048576", "3145728"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        flexSet0 = FlexSet.instance();
+        flexSet1 = FlexSet.instance();
+        hashSet0 = new HashSet<>();
+        hashSet1 = new HashSet<>();
+        int shift = numberOfElements / 10;
+        for (int i = 0; i < numberOfElements; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(i + shift));
+            hashSet0.add(new TestObject_0(i));
+            hashSet1.add(new TestObject_0(i + shift));
+        }
+    }
+
+    @Benchmark
+    public Object timeDifference_FlexSet() {
+        return flexSet0.difference(flexSet1);
+    }
+
+    @Benchmark
+    public Object timeDifferenceByRemoveAll_FlexSet() {
+        FlexSet<TestObject_0> difference = FlexSet.instance(numberOfElements);
+        difference.addAll(flexSet0);
+        difference.removeAll(flexSet1);
+        return difference;
+    }
+
+    @Benchmark
+    public Object timeDifferenceByRemoveAll_HashSet() {
+        HashSet<TestObject_0> difference = new HashSet<>(hashSet0);
+        difference.removeAll(hashSet1);
+        return difference;
+    }
+
+    @Benchmark
+    public Object timeIntersect_FlexSet() {
+        return flexSet0.intersect(flexSet1);
+    }
+
+    @Benchmark
+    public Object timeIntersectByRetainAll_HashSet() {
+        HashSet<TestObject_0> intersection = new HashSet<>(hashSet0);
+        intersection.retainAll(hashSet1);
+        return intersection;
+    }
+
+    @Benchmark
+    public boolean timeEquals_FlexSet() {
+        return flexSet0.equals(flexSet1);
+    }
+
+    @Benchmark
+    public boolean timeEquals_HashSet() {
+        return hashSet0.equals(hashSet1);
+    }
+
+    @Benchmark
+    public int timeHashCode_FlexSet() {
+        return flexSet0.hashCode();
+    }
+
+    @Benchmark
+    public Object timeUnion_FlexSet() {
+        return flexSet0.union(flexSet1);
+    }
+
+    @Benchmark
+    public Object timeUnionByAddAll_HashSet() {
+        HashSet<TestObject_0> union = new HashSet<>(hashSet0);
+        union.addAll(hashSet1);
+        return union;
+    }
+
+}
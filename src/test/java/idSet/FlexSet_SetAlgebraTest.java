@@ -0,0 +1,147 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_SetAlgebraTest {
+
+    @Test
+    public void shouldBehaveLikeHashSetForSetsOfDifferentCapacities() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        for (int attempt=0; attempt<20; attempt++) {
+            Set<Integer> ids0 = randomIds(generator, generator.nextInt(2000));
+            Set<Integer> ids1 = randomIds(generator, generator.nextInt(200));
+            FlexSet<TestObject_0> flexSet0 = flexSetOf(ids0);
+            FlexSet<TestObject_0> flexSet1 = flexSetOf(ids1);
+            assertTrue(flexSet0.union(flexSet1).idSet().equals(union(ids0, ids1)));
+            assertTrue(flexSet1.union(flexSet0).idSet().equals(union(ids0, ids1)));
+            assertTrue(flexSet0.intersect(flexSet1).idSet().equals(intersection(ids0, ids1)));
+            assertTrue(flexSet1.intersect(flexSet0).idSet().equals(intersection(ids0, ids1)));
+            assertTrue(flexSet0.difference(flexSet1).idSet().equals(difference(ids0, ids1)));
+            assertTrue(flexSet1.difference(flexSet0).idSet().equals(difference(ids1, ids0)));
+        }
+    }
+
+    @Test
+    public void shouldKeepSizeAndAllowFurtherModifications() {
+        FlexSet<TestObject_0> flexSet0 = flexSetOf(randomIds(ThreadLocalRandom.current(), 1000));
+        FlexSet<TestObject_0> flexSet1 = flexSetOf(randomIds(ThreadLocalRandom.current(), 1000));
+        FlexSet<TestObject_0> union = flexSet0.union(flexSet1);
+        assertTrue(union.size() == union.idSet().size());
+        assertTrue(union.capacity >= union.size());
+        assertTrue(union.add(new TestObject_0(-1)));
+        assertTrue(union.removeId(-1) != null);
+    }
+
+    @Test
+    public void shouldTakeElementsPresentInBothSetsFromThisSet() {
+        TestObject_0 testObject = new TestObject_0(0);
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        flexSet0.add(testObject);
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        flexSet1.add(new TestObject_0(0));
+        assertTrue(flexSet0.union(flexSet1).get(0) == testObject);
+        assertTrue(flexSet0.intersect(flexSet1).get(0) == testObject);
+    }
+
+    @Test
+    public void shouldMergeElementsWithEqualHashCodes() {
+        FlexSet<TestObject_6> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_6> flexSet1 = FlexSet.instance();
+        for (int i=0; i<4; i++) {
+            flexSet0.add(new TestObject_6(i));
+            flexSet1.add(new TestObject_6(i + 2));
+        }
+        assertTrue(flexSet0.union(flexSet1).size() == 6);
+        FlexSet<TestObject_6> intersection = flexSet0.intersect(flexSet1);
+        assertTrue(intersection.size() == 2);
+        assertTrue(intersection.containsId(new TestObject_6.Id(2)) && intersection.containsId(new TestObject_6.Id(3)));
+        FlexSet<TestObject_6> difference = flexSet0.difference(flexSet1);
+        assertTrue(difference.size() == 2);
+        assertTrue(difference.containsId(new TestObject_6.Id(0)) && difference.containsId(new TestObject_6.Id(1)));
+    }
+
+    @Test
+    public void shouldModifySetInPlace() {
+        Set<Integer> ids0 = randomIds(ThreadLocalRandom.current(), 500);
+        Set<Integer> ids1 = randomIds(ThreadLocalRandom.current(), 500);
+        FlexSet<TestObject_0> flexSet = flexSetOf(ids0);
+        flexSet.intersectInPlace(flexSetOf(ids1));
+        assertTrue(flexSet.idSet().equals(intersection(ids0, ids1)));
+        flexSet = flexSetOf(ids0);
+        flexSet.differenceInPlace(flexSetOf(ids1));
+        assertTrue(flexSet.idSet().equals(difference(ids0, ids1)));
+        flexSet = flexSetOf(ids0);
+        assertTrue(flexSet.unionInPlace(flexSetOf(ids1)) == !ids0.containsAll(ids1));
+        assertTrue(flexSet.idSet().equals(union(ids0, ids1)));
+        assertTrue(!flexSet.unionInPlace(flexSetOf(ids1)));
+    }
+
+    @Test
+    public void shouldModifyBucketsOfSetInPlace() {
+        Set<Integer> ids0 = new HashSet<>();
+        Set<Integer> ids1 = new HashSet<>();
+        for (int i=0; i<500; i++) {
+            ids0.add(i);
+            ids1.add(i + 250);
+        }
+        FlexSet<TestObject_0> flexSet = flexSetOf(ids0);
+        TestObject_0 testObject = flexSet.get(300);
+        FlexSet.IdRef<TestObject_0>[] elements = flexSet.elements;
+        assertTrue(flexSet.intersectInPlace(flexSetOf(ids1)));
+        assertTrue(flexSet.elements == elements);
+        assertTrue(flexSet.idSet().equals(intersection(ids0, ids1)));
+        assertTrue(flexSet.get(300) == testObject);
+        assertTrue(flexSet.unionInPlace(flexSetOf(ids0)));
+        assertTrue(flexSet.elements == elements);
+        assertTrue(flexSet.get(300) == testObject);
+        assertTrue(flexSet.differenceInPlace(flexSetOf(ids1)));
+        assertTrue(flexSet.elements == elements);
+        assertTrue(flexSet.idSet().equals(difference(ids0, ids1)));
+        assertTrue(flexSet.equals(flexSetOf(ids0).difference(flexSetOf(ids1))));
+        assertTrue(flexSet.hashCode() == flexSetOf(ids0).difference(flexSetOf(ids1)).hashCode());
+    }
+
+    private Set<Integer> randomIds(ThreadLocalRandom generator, int numberOfIds) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i=0; i<numberOfIds; i++) {
+            ids.add(generator.nextInt(4096));
+        }
+        return ids;
+    }
+
+    private FlexSet<TestObject_0> flexSetOf(Set<Integer> ids) {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (Integer id : ids) {
+            flexSet.add(new TestObject_0(id));
+        }
+        return flexSet;
+    }
+
+    private Set<Object> union(Set<Integer> ids0, Set<Integer> ids1) {
+        Set<Object> result = new HashSet<>(ids0);
+        result.addAll(ids1);
+        return result;
+    }
+
+    private Set<Object> intersection(Set<Integer> ids0, Set<Integer> ids1) {
+        Set<Object> result = new HashSet<>(ids0);
+        result.retainAll(ids1);
+        return result;
+    }
+
+    private Set<Object> difference(Set<Integer> ids0, Set<Integer> ids1) {
+        Set<Object> result = new HashSet<>(ids0);
+        result.removeAll(ids1);
+        return result;
+    }
+
+}
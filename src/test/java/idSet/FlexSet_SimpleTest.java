@@ -363,6 +363,46 @@ public class FlexSet_SimpleTest {
         assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
     }
 
+    @Test
+    public void shouldBeEqualRegardlessOfCapacityAndOrderOfAddition() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance(1024);
+        for (int i=0; i<100; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(99 - i));
+        }
+        assertTrue(flexSet0.capacity != flexSet1.capacity);
+        assertTrue(flexSet0.equals(flexSet1) && flexSet1.equals(flexSet0));
+        assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
+    }
+
+    @Test
+    public void shouldRestoreHashCodeAfterRemoval() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(0));
+        int hashCode = flexSet.hashCode();
+        flexSet.add(new TestObject_0(1));
+        assertTrue(flexSet.hashCode() != hashCode);
+        flexSet.removeId(1);
+        assertTrue(flexSet.hashCode() == hashCode);
+        flexSet.clear();
+        assertTrue(flexSet.hashCode() == FlexSet.instance().hashCode());
+    }
+
+    @Test
+    public void shouldNotBeEqualToSetOfTheSameSizeWithOtherIds() {
+        FlexSet<TestObject_0> flexSet0 = FlexSet.instance();
+        FlexSet<TestObject_0> flexSet1 = FlexSet.instance();
+        for (int i=0; i<100; i++) {
+            flexSet0.add(new TestObject_0(i));
+            flexSet1.add(new TestObject_0(i + 1));
+        }
+        assertTrue(!flexSet0.equals(flexSet1));
+        assertTrue(!flexSet0.containsAll(flexSet1));
+        flexSet1.add(new TestObject_0(0));
+        assertTrue(flexSet1.containsAll(flexSet0));
+    }
+
     @Test
     public void shouldReturnIdSet() {
         Set<Integer> intSet = new HashSet<>();
@@ -390,6 +430,66 @@ public class FlexSet_SimpleTest {
         assertTrue(entrySet.equals(set));
     }
 
+    @Test
+    public void shouldGetAllElementsByIdsArray() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<100; i+=2) {
+            flexSet.add(new TestObject_0(i));
+        }
+        Object[] ids = new Object[FlexSet.GET_ALL_BATCH_SIZE * 3 + 1];
+        for (int i=0; i<ids.length; i++) {
+            ids[i] = i;
+        }
+        TestObject_0[] out = new TestObject_0[ids.length];
+        int found = flexSet.getAll(ids, out);
+        assertTrue(found == (ids.length + 1) / 2);
+        for (int i=0; i<ids.length; i++) {
+            assertTrue(out[i] == flexSet.get(i));
+        }
+    }
+
+    @Test
+    public void shouldGetAllElementsByIdsCollection() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(0));
+        flexSet.add(new TestObject_0(2));
+        List<TestObject_0> got = flexSet.getAll(Arrays.asList(0, 1, 2));
+        assertTrue(got.equals(Arrays.asList(new TestObject_0(0), null, new TestObject_0(2))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGetAllIntoTooSmallArray() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.getAll(new Object[]{0, 1}, new TestObject_0[1]);
+    }
+
+    @Test
+    public void shouldReflectChangesInIdSetView() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        Set<Object> idSet = flexSet.idSet();
+        flexSet.add(new TestObject_0(0));
+        flexSet.add(new TestObject_0(1));
+        assertTrue(idSet.size() == 2);
+        assertTrue(idSet.contains(1));
+        assertTrue(!idSet.contains(2));
+        assertTrue(idSet.remove(1));
+        assertTrue(!flexSet.containsId(1));
+        assertTrue(flexSet.size() == 1);
+    }
+
+    @Test
+    public void shouldReflectChangesInEntrySetView() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        Set<TestObject_0> entrySet = flexSet.entrySet();
+        flexSet.add(new TestObject_0(0));
+        assertTrue(entrySet.size() == 1);
+        assertTrue(entrySet.contains(new TestObject_0(0)));
+        assertTrue(!entrySet.contains("0"));
+        assertTrue(entrySet.remove(new TestObject_0(0)));
+        assertTrue(flexSet.isEmpty());
+        assertTrue(entrySet.isEmpty());
+    }
+
     @Test
     public void shouldBeIterable() {
         FlexSet<TestObject_0> flexSet = FlexSet.instance();
@@ -402,4 +502,45 @@ public class FlexSet_SimpleTest {
         }
     }
 
+    @Test
+    public void shouldVisitAllElementsWithForEach() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        Set<TestObject_0> set = new HashSet<>();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i));
+            set.add(new TestObject_0(i));
+        }
+        Set<TestObject_0> visited = new HashSet<>();
+        flexSet.forEach(visited::add);
+        assertTrue(visited.equals(set));
+    }
+
+    @Test
+    public void shouldVisitAllIdsWithForEachId() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        Set<Object> ids = new HashSet<>();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i));
+            ids.add(i);
+        }
+        Set<Object> visited = new HashSet<>();
+        flexSet.forEachId(visited::add);
+        assertTrue(visited.equals(ids));
+    }
+
+    @Test
+    public void shouldVisitElementsInIterationOrderWithForEachIndexed() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_0(i * 7));
+        }
+        List<TestObject_0> iterated = new ArrayList<>();
+        for (TestObject_0 testObject : flexSet) {
+            iterated.add(testObject);
+        }
+        TestObject_0[] visited = new TestObject_0[100];
+        flexSet.forEachIndexed((testObject, i) -> visited[i] = testObject);
+        assertTrue(Arrays.asList(visited).equals(iterated));
+    }
+
 }
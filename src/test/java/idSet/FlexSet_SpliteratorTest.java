@@ -0,0 +1,110 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlexSet_SpliteratorTest {
+
+    @Test
+    public void shouldReportSizeAndCharacteristics() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(100);
+        Spliterator<TestObject_0> spliterator = flexSet.spliterator();
+        assertTrue(spliterator.estimateSize() == 100);
+        assertTrue(spliterator.getExactSizeIfKnown() == 100);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.DISTINCT | Spliterator.NONNULL));
+    }
+
+    @Test
+    public void shouldCoverAllElementsWithSplitParts() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(1000);
+        Spliterator<TestObject_0> suffix = flexSet.spliterator();
+        Spliterator<TestObject_0> prefix = suffix.trySplit();
+        assertTrue(prefix != null);
+        assertTrue(!prefix.hasCharacteristics(Spliterator.SIZED) && !suffix.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(prefix.estimateSize() + suffix.estimateSize() == 1000);
+        Set<TestObject_0> traversed = new HashSet<>();
+        prefix.forEachRemaining(traversed::add);
+        suffix.forEachRemaining(traversed::add);
+        assertTrue(traversed.equals(new HashSet<>(flexSet)));
+    }
+
+    @Test
+    public void shouldContinueWithForEachRemainingAfterTryAdvance() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(100);
+        Spliterator<TestObject_0> spliterator = flexSet.spliterator();
+        List<TestObject_0> traversed = new ArrayList<>();
+        for (int i=0; i<10; i++) {
+            assertTrue(spliterator.tryAdvance(traversed::add));
+        }
+        spliterator.forEachRemaining(traversed::add);
+        assertTrue(!spliterator.tryAdvance(traversed::add));
+        assertTrue(traversed.size() == 100);
+        assertTrue(new HashSet<>(traversed).equals(new HashSet<>(flexSet)));
+    }
+
+    @Test
+    public void shouldNotSplitSingleBucket() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(100);
+        Spliterator<TestObject_0> spliterator = flexSet.spliterator();
+        while (true) {
+            Spliterator<TestObject_0> prefix = spliterator.trySplit();
+            if (prefix == null) {
+                break;
+            }
+        }
+        assertTrue(spliterator.trySplit() == null);
+    }
+
+    @Test
+    public void shouldSplitAfterTryAdvance() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(1000);
+        Spliterator<TestObject_0> spliterator = flexSet.spliterator();
+        Set<TestObject_0> traversed = new HashSet<>();
+        assertTrue(spliterator.tryAdvance(traversed::add));
+        Spliterator<TestObject_0> split = spliterator.trySplit();
+        assertTrue(split != null);
+        assertTrue(split.estimateSize() + spliterator.estimateSize() == 1000);
+        Spliterator<TestObject_0> splitAgain = spliterator.trySplit();
+        assertTrue(splitAgain != null);
+        split.forEachRemaining(testObject -> assertTrue(traversed.add(testObject)));
+        splitAgain.forEachRemaining(testObject -> assertTrue(traversed.add(testObject)));
+        spliterator.forEachRemaining(testObject -> assertTrue(traversed.add(testObject)));
+        assertTrue(traversed.equals(new HashSet<>(flexSet)));
+    }
+
+    @Test
+    public void shouldCollectAllElementsWithParallelStream() {
+        FlexSet<TestObject_0> flexSet = flexSetOf(100000);
+        Set<Integer> ids = flexSet.parallelStream().map(TestObject_0::getId).collect(Collectors.toSet());
+        assertTrue(ids.size() == 100000);
+        assertTrue(flexSet.parallelStream().count() == 100000);
+        assertTrue(flexSet.parallelStream().mapToLong(TestObject_0::getId).sum() == 99999L * 100000 / 2);
+    }
+
+    @Test
+    public void shouldTraverseElementsDuringIncrementalRebuild() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().incrementalResize(true).build();
+        int expansionThreshold = flexSet.expansionThreshold;
+        for (int i=0; i<expansionThreshold+1; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(flexSet.previousElements != null);
+        assertTrue(flexSet.stream().count() == flexSet.size());
+    }
+
+    private FlexSet<TestObject_0> flexSetOf(int numberOfElements) {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<numberOfElements; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        return flexSet;
+    }
+
+}
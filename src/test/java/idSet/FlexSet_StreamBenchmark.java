@@ -0,0 +1,50 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// aggregation over the whole set, sequential and parallel streams of FlexSet compared with HashSet
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Benchmark)
+public class FlexSet_StreamBenchmark {
+
+    private FlexSet<TestObject_0> flexSet;
+    private HashSet<TestObject_0> hashSet;
+
+    @Param({"65536", "1048576", "4194304"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        flexSet = FlexSet.instance();
+        hashSet = new HashSet<>();
+        for (int i = 0; i < numberOfElements; i++) {
+            flexSet.add(new TestObject_0(i));
+            hashSet.add(new TestObject_0(i));
+        }
+    }
+
+    @Benchmark
+    public long timeStreamSum_FlexSet() {
+        return flexSet.stream().mapToLong(TestObject_0::getId).sum();
+    }
+
+    @Benchmark
+    public long timeParallelStreamSum_FlexSet() {
+        return flexSet.parallelStream().mapToLong(TestObject_0::getId).sum();
+    }
+
+    @Benchmark
+    public long timeParallelStreamSum_HashSet() {
+        return hashSet.parallelStream().mapToLong(TestObject_0::getId).sum();
+    }
+
+}
@@ -0,0 +1,103 @@
+package idSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+// implementations the parameterized suites are run against, capacity fields are package private in each of them
+enum IdSetImplementation {
+
+    FLEX_SET {
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> instance() {
+            return FlexSet.instance();
+        }
+
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> instance(int initialCapacity) {
+            return FlexSet.instance(initialCapacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> fromArray(T[] a) {
+            return FlexSet.fromArray(a);
+        }
+
+        @Override
+        <K, V> AbstractIdSet<IdWrapper<K, V>> fromMap(Map<K, V> map) {
+            return FlexSet.fromMap(map);
+        }
+
+        @Override
+        int capacity(IdSet<?> idSet) {
+            return ((FlexSet<?>) idSet).capacity;
+        }
+
+        @Override
+        int modCapacity(IdSet<?> idSet) {
+            return ((FlexSet<?>) idSet).modCapacity;
+        }
+
+        @Override
+        int expansionThreshold(IdSet<?> idSet) {
+            return ((FlexSet<?>) idSet).expansionThreshold;
+        }
+    },
+
+    OPEN_ADDRESSING_FLEX_SET {
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> instance() {
+            return OpenAddressingFlexSet.instance();
+        }
+
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> instance(int initialCapacity) {
+            return OpenAddressingFlexSet.instance(initialCapacity);
+        }
+
+        @Override
+        <T extends Identifiable> AbstractIdSet<T> fromArray(T[] a) {
+            return OpenAddressingFlexSet.fromArray(a);
+        }
+
+        @Override
+        <K, V> AbstractIdSet<IdWrapper<K, V>> fromMap(Map<K, V> map) {
+            return OpenAddressingFlexSet.fromMap(map);
+        }
+
+        @Override
+        int capacity(IdSet<?> idSet) {
+            return ((OpenAddressingFlexSet<?>) idSet).capacity;
+        }
+
+        @Override
+        int modCapacity(IdSet<?> idSet) {
+            return ((OpenAddressingFlexSet<?>) idSet).modCapacity;
+        }
+
+        @Override
+        int expansionThreshold(IdSet<?> idSet) {
+            return ((OpenAddressingFlexSet<?>) idSet).expansionThreshold;
+        }
+    };
+
+    abstract <T extends Identifiable> AbstractIdSet<T> instance();
+
+    abstract <T extends Identifiable> AbstractIdSet<T> instance(int initialCapacity);
+
+    abstract <T extends Identifiable> AbstractIdSet<T> fromArray(T[] a);
+
+    abstract <K, V> AbstractIdSet<IdWrapper<K, V>> fromMap(Map<K, V> map);
+
+    abstract int capacity(IdSet<?> idSet);
+
+    abstract int modCapacity(IdSet<?> idSet);
+
+    abstract int expansionThreshold(IdSet<?> idSet);
+
+    static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{FLEX_SET}, {OPEN_ADDRESSING_FLEX_SET}});
+    }
+
+}
@@ -0,0 +1,418 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(Parameterized.class)
+public class IdSet_BoundaryTest {
+
+    private final IdSetImplementation implementation;
+
+    public IdSet_BoundaryTest(IdSetImplementation implementation) {
+        this.implementation = implementation;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> implementations() {
+        return IdSetImplementation.parameters();
+    }
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenInitialCapacityIsLessThan1() {
+        exception.expect(IllegalArgumentException.class);
+        implementation.instance(0);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenContainsCalledWithNotIdentifiableObject() {
+        exception.expect(IllegalArgumentException.class);
+        implementation.instance().contains(false);
+    }
+
+    @Test
+    public void shouldServeIdentifierWhichReturnNegativeHashCodes() {
+        AbstractIdSet<Identifiable> flexSet = implementation.instance();
+        TestObject_0 object = new TestObject_0(-1);
+        flexSet.add(object);
+        assertTrue(flexSet.getByElem(object) != null);
+
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTheArrayPassedToToArrayMethodIsToSmall() {
+        exception.expect(IllegalArgumentException.class);
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        flexSet.add(new TestObject_0(0));
+        flexSet.add(new TestObject_0(1));
+        flexSet.toArray(new TestObject_0[1]);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTheArrayPassedToToArrayMethodIsNotASubclassOfGenericType() {
+        exception.expect(ArrayStoreException.class);
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        flexSet.add(new TestObject_0(0));
+        flexSet.toArray(new TestObject_1[1]);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemoveCalledWithNotIdentifiableObject() {
+        exception.expect(IllegalArgumentException.class);
+        implementation.instance().remove(false);
+    }
+
+    @Test
+    public void shouldReturnFalseWhenCallingContainsAllMethodWithIdentifiableObjects() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        TestObject_0 object0 = new TestObject_0(0);
+        TestObject_0 object1 = new TestObject_0(1);
+        TestObject_0 object2 = new TestObject_0(2);
+        flexSet.add(object0);
+        flexSet.add(object1);
+        flexSet.add(object2);
+        boolean result = flexSet.containsAll(Arrays.asList(false));
+        assertTrue(!result);
+        result = flexSet.containsAll(Arrays.asList(false, object0));
+        assertTrue(!result);
+    }
+
+    @Test
+    public void shouldAddObjectsToTheSameIdRef() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        int capacity = implementation.capacity(flexSet);
+        int limit = 256;
+        for (int i=-limit; i<limit; i++) {
+            flexSet.add(new TestObject_0(i*capacity));
+        }
+        for (int i=-limit; i<limit; i++) {
+            assertTrue(flexSet.contains(new TestObject_0(i*capacity)));
+        }
+        assertTrue(flexSet.size() == 2*limit);
+    }
+
+    @Test
+    public void shouldRemoveObjectsFromTheSameIdRef() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        int limit = 256;
+        for (int i = 0; i<limit; i++) {
+            flexSet.add(new TestObject_0(i*limit));
+        }
+        for (int i=0; i<limit; i++) {
+            flexSet.remove(new TestObject_0(i*limit));
+        }
+        for (int i=0; i<limit; i++) {
+            assertTrue(!flexSet.contains(new TestObject_0(i*limit)));
+        }
+    }
+
+    @Test
+    public void shouldFindObjectAddedBetweenGreaterAndLowerHashCodesOfTheSameIdRef() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        int capacity = implementation.capacity(flexSet);
+        flexSet.add(new TestObject_0(capacity));
+        flexSet.add(new TestObject_0(3*capacity));
+        flexSet.add(new TestObject_0(2*capacity));
+        assertTrue(flexSet.containsId(capacity));
+        assertTrue(flexSet.containsId(2*capacity));
+        assertTrue(flexSet.containsId(3*capacity));
+    }
+
+    @Test
+    public void shouldAddObjectsEvenForConstantHashCode() {
+        AbstractIdSet<TestObject_5> flexSet = implementation.instance();
+        int limit = implementation.capacity(flexSet);
+        TestObject_5[] array = new TestObject_5[limit];
+        for (int i=0; i<limit; i++) {
+            array[i] = new TestObject_5(i);
+        }
+        for (TestObject_5 testObject_5 : array) {
+            flexSet.add(testObject_5);
+        }
+        assertTrue(flexSet.size() == limit);
+        for (TestObject_5 testObject_5 : array) {
+            assertTrue(flexSet.contains(testObject_5));
+        }
+    }
+
+    @Test
+    public void shouldAddObjectsEvenForConstantIdHashCode() {
+        AbstractIdSet<TestObject_6> flexSet = implementation.instance();
+        int limit = implementation.capacity(flexSet);
+        TestObject_6[] array = new TestObject_6[limit];
+        for (int i=0; i<limit; i++) {
+            array[i] = new TestObject_6(i);
+        }
+        for (TestObject_6 testObject_6 : array) {
+            flexSet.add(testObject_6);
+        }
+        assertTrue(flexSet.size() == limit);
+        for (TestObject_6 testObject_6 : array) {
+            assertTrue(flexSet.contains(testObject_6));
+        }
+    }
+
+    @Test
+    public void shouldShrinkOnRemoval() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        for (int i=0; i<129; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        int capacity = implementation.capacity(flexSet);
+        for (int i=0; i<129; i++) {
+            flexSet.remove(new TestObject_0(i));
+        }
+        assertTrue(implementation.capacity(flexSet) != capacity);
+
+        for (int i=0; i<129; i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        Collection<TestObject_0> c = new ArrayList<>();
+        for (int i=0; i<129; i++) {
+            c.add(new TestObject_0(i));
+        }
+        flexSet.removeAll(c);
+        assertTrue(implementation.capacity(flexSet) != capacity);
+
+    }
+
+    @Test
+    public void shouldCheckNecessaryConditionsWhenCallingContainsAllMethod() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        TestObject_0 object0 = new TestObject_0(0);
+        TestObject_0 object1 = new TestObject_0(1);
+        TestObject_0 object2 = new TestObject_0(2);
+        flexSet.add(object0);
+        flexSet.add(object1);
+        boolean result = flexSet.containsAll(new HashSet<>(Arrays.asList(object0, object1, object2)));
+        assertTrue(!result);
+    }
+
+    @Test
+    public void shouldHandleNegativeHashCodes() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        TestObject_0 testObject = new TestObject_0(-983);
+        flexSet.add(testObject);
+        assertTrue(flexSet.size() == 1);
+        assertTrue(flexSet.getByElem(testObject).getId() == -983);
+
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToAddNullElement() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        flexSet.add(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToRemoveNullElement() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        flexSet.remove(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToGetByNullElement() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        flexSet.getByElem(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToPassNullAsAnArgumentToAddAllMethod() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet flexSet = implementation.instance();
+        flexSet.addAll(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToPassNullAsAnArgumentToRemoveAllMethod() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet flexSet = implementation.instance();
+        flexSet.removeAll(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToPassNullAsAnArgumentToRemoveAllIdsMethod() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet flexSet = implementation.instance();
+        flexSet.removeAllIds(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToPassNullAsAnArgumentToRetainAllMethod() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet flexSet = implementation.instance();
+        flexSet.retainAll(null);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToPassNullAsAnArgumentToRetainAllIdsMethod() {
+        exception.expect(NullPointerException.class);
+        AbstractIdSet flexSet = implementation.instance();
+        flexSet.retainAllIds(null);
+    }
+
+    @Test
+    public void shouldBePossiblyUsedAsIdInAnotherFlexSet() {
+        AbstractIdSet<Identifiable> flexSet = implementation.instance();
+        for (int i=0; i<3; i++) {
+            AbstractIdSet<TestObject_0> subFlexSet = implementation.instance();
+            for (int j=0; j<3; j++) {
+                subFlexSet.add(new TestObject_0(i+j));
+            }
+            flexSet.add((Identifiable) subFlexSet);
+        }
+        assertTrue(flexSet.size() == 3);
+        for (Identifiable subFlexSet : flexSet) {
+            assertTrue(((IdSet<?>) subFlexSet).size() == 3);
+        }
+    }
+
+    @Test
+    public void shouldExpandOnAddition() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        int capacity = implementation.capacity(flexSet);
+        int modCapacity = implementation.modCapacity(flexSet);
+        int rebuildThreshold = implementation.expansionThreshold(flexSet);
+        for (int i=0; i<rebuildThreshold+1;i++) {
+            flexSet.add(new TestObject_0(i));
+        }
+        assertTrue(capacity == implementation.capacity(flexSet)/2);
+        assertTrue(modCapacity == (implementation.modCapacity(flexSet)-1)/2);
+        assertTrue(rebuildThreshold != implementation.expansionThreshold(flexSet));
+    }
+
+    @Test
+    public void shouldKeepClusteredElementsReachableAfterRemoval() {
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        int capacity = implementation.capacity(flexSet);
+        int limit = implementation.expansionThreshold(flexSet);
+        for (int i=0; i<limit; i++) {
+            flexSet.add(new TestObject_0(i*capacity));
+        }
+        for (int i=0; i<limit; i+=2) {
+            assertTrue(flexSet.remove(new TestObject_0(i*capacity)));
+        }
+        assertTrue(implementation.capacity(flexSet) == capacity);
+        for (int i=0; i<limit; i++) {
+            assertTrue(flexSet.contains(new TestObject_0(i*capacity)) == (i%2 == 1));
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForRandomAdditionsAndRemovals() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        Set<Integer> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            int id = generator.nextInt(2048) * 64;
+            if (generator.nextBoolean()) {
+                assertTrue(flexSet.add(new TestObject_0(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeId(id) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        for (Integer id : set) {
+            assertTrue(flexSet.containsId(id));
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForClusteredHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        AbstractIdSet<TestObject_0> flexSet = implementation.instance();
+        Set<TestObject_0> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            TestObject_0 testObject = new TestObject_0(generator.nextInt(2048) * 4096);
+            if (generator.nextInt(3) > 0) {
+                assertTrue(flexSet.add(testObject) == set.add(testObject));
+            } else {
+                assertTrue((flexSet.removeId(testObject.getId()) != null) == set.remove(testObject));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        assertTrue(new HashSet<>(flexSet).equals(set));
+        for (TestObject_0 testObject : set) {
+            assertTrue(flexSet.get(testObject.getId()) != null);
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForEqualHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        AbstractIdSet<TestObject_6> flexSet = implementation.instance();
+        Set<Integer> set = new HashSet<>();
+        for (int i=0; i<16384; i++) {
+            int id = generator.nextInt(64);
+            if (generator.nextInt(3) > 0) {
+                assertTrue(flexSet.add(new TestObject_6(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeId(new TestObject_6.Id(id)) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        int iterated = 0;
+        for (TestObject_6 testObject : flexSet) {
+            assertTrue(set.contains(testObject.getId().id));
+            iterated++;
+        }
+        assertTrue(iterated == set.size());
+    }
+
+    @Test
+    public void shouldFindIdsOfDifferentClassesWithEqualHashCodes() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        List<Object> ids = new ArrayList<>(collidingStrings(5));
+        int hashCode = ids.get(0).hashCode();
+        ids.add((long) hashCode);
+        ids.add(hashCode);
+        for (int trial=0; trial<1000; trial++) {
+            AbstractIdSet<IdWrapper<Object, Integer>> flexSet = implementation.instance();
+            Set<Object> set = new HashSet<>();
+            for (int i=0; i<64; i++) {
+                Object id = ids.get(generator.nextInt(ids.size()));
+                if (generator.nextInt(4) > 0) {
+                    assertTrue(flexSet.add(new IdWrapper<>(id, i)) == set.add(id));
+                } else {
+                    assertTrue((flexSet.removeId(id) != null) == set.remove(id));
+                }
+            }
+            assertTrue(flexSet.size() == set.size());
+            for (Object id : ids) {
+                assertTrue(flexSet.containsId(id) == set.contains(id));
+            }
+        }
+    }
+
+    // every concatenation of the same number of "Aa" and "BB" blocks has the same hash code
+    private static List<String> collidingStrings(int numberOfBlocks) {
+        List<String> strings = new ArrayList<>();
+        for (int i=0; i<1<<numberOfBlocks; i++) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int j=0; j<numberOfBlocks; j++) {
+                stringBuilder.append((i & 1<<j) == 0 ? "Aa" : "BB");
+            }
+            strings.add(stringBuilder.toString());
+        }
+        return strings;
+    }
+
+}
@@ -0,0 +1,124 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(Parameterized.class)
+public class IdSet_IteratorTest {
+
+    private final IdSetImplementation implementation;
+
+    public IdSet_IteratorTest(IdSetImplementation implementation) {
+        this.implementation = implementation;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> implementations() {
+        return IdSetImplementation.parameters();
+    }
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenAddedWhileIterating() {
+        AbstractIdSet<TestObject_0> idSet = filledIdSet(100);
+        Iterator<TestObject_0> iterator = idSet.iterator();
+        iterator.next();
+        idSet.add(new TestObject_0(-1));
+        exception.expect(ConcurrentModificationException.class);
+        iterator.next();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemovedWhileIterating() {
+        AbstractIdSet<TestObject_0> idSet = filledIdSet(100);
+        Iterator<TestObject_0> iterator = idSet.iterator();
+        iterator.next();
+        idSet.removeId(50);
+        exception.expect(ConcurrentModificationException.class);
+        iterator.remove();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemovedTwice() {
+        AbstractIdSet<TestObject_0> idSet = filledIdSet(100);
+        Iterator<TestObject_0> iterator = idSet.iterator();
+        iterator.next();
+        iterator.remove();
+        exception.expect(IllegalStateException.class);
+        iterator.remove();
+    }
+
+    @Test
+    public void shouldRemoveAllElementsThroughIterator() {
+        AbstractIdSet<TestObject_0> idSet = filledIdSet(2048);
+        int capacity = implementation.capacity(idSet);
+        int removed = 0;
+        for (Iterator<TestObject_0> iterator = idSet.iterator(); iterator.hasNext(); ) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+        assertTrue(removed == 2048);
+        assertTrue(idSet.isEmpty() && !idSet.iterator().hasNext());
+        assertTrue(implementation.capacity(idSet) == capacity);
+        assertTrue(idSet.equals(implementation.instance()));
+    }
+
+    @Test
+    public void shouldVisitEveryElementOnceWhileRemovingThroughIterator() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        for (int trial=0; trial<100; trial++) {
+            AbstractIdSet<TestObject_0> idSet = implementation.instance();
+            for (int i=0; i<200; i++) {
+                idSet.add(new TestObject_0(generator.nextInt(4096) * 1024));
+            }
+            int size = idSet.size();
+            Set<TestObject_0> set = new HashSet<>(idSet);
+            Set<TestObject_0> visited = new HashSet<>();
+            for (Iterator<TestObject_0> iterator = idSet.iterator(); iterator.hasNext(); ) {
+                TestObject_0 testObject = iterator.next();
+                assertTrue(visited.add(testObject));
+                if (generator.nextBoolean()) {
+                    iterator.remove();
+                    set.remove(testObject);
+                }
+            }
+            assertTrue(visited.size() == size);
+            assertTrue(idSet.size() == set.size());
+            assertTrue(new HashSet<>(idSet).equals(set));
+            for (TestObject_0 testObject : set) {
+                assertTrue(idSet.containsId(testObject.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRemoveIf() {
+        AbstractIdSet<TestObject_0> idSet = filledIdSet(200);
+        assertTrue(idSet.removeIf(testObject -> testObject.getId() % 2 == 0));
+        assertTrue(idSet.size() == 100);
+        for (int i=0; i<200; i++) {
+            assertTrue(idSet.containsId(i) == (i % 2 == 1));
+        }
+        assertTrue(!idSet.removeIf(testObject -> testObject.getId() % 2 == 0));
+    }
+
+    private AbstractIdSet<TestObject_0> filledIdSet(int size) {
+        AbstractIdSet<TestObject_0> idSet = implementation.instance();
+        for (int i=0; i<size; i++) {
+            idSet.add(new TestObject_0(i));
+        }
+        return idSet;
+    }
+
+}
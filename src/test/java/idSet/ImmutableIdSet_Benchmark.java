@@ -0,0 +1,90 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// run with -prof gc, gc.alloc.rate.norm of the timeCopy benchmarks is the memory footprint of a set of numberOfElements
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class ImmutableIdSet_Benchmark {
+
+    private TestObject_0[] testObjects;
+    private FlexSet<TestObject_0> flexSet;
+    private ImmutableIdSet<TestObject_0> immutableIdSet;
+    private HashMap<Object, TestObject_0> hashMap;
+
+    @Param({"1024", "65536", "524288"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_0[numberOfElements];
+        flexSet = FlexSet.instance();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects[i] = new TestObject_0(i);
+            flexSet.add(testObjects[i]);
+            hashMap.put(testObjects[i].getId(), testObjects[i]);
+        }
+        immutableIdSet = flexSet.freeze();
+    }
+
+    @Benchmark
+    public Object timeGet_FlexSet() {
+        return flexSet.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    public Object timeGet_ImmutableIdSet() {
+        return immutableIdSet.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    public Object timeGet_HashMap() {
+        return hashMap.get(ThreadLocalRandom.current().nextInt(numberOfElements));
+    }
+
+    @Benchmark
+    public void timeIterate_FlexSet(Blackhole blackhole) {
+        for (TestObject_0 testObject : flexSet) {
+            blackhole.consume(testObject);
+        }
+    }
+
+    @Benchmark
+    public void timeIterate_ImmutableIdSet(Blackhole blackhole) {
+        for (TestObject_0 testObject : immutableIdSet) {
+            blackhole.consume(testObject);
+        }
+    }
+
+    @Benchmark
+    public Object timeCopy_FlexSet() {
+        FlexSet<TestObject_0> copy = FlexSet.instance();
+        for (TestObject_0 testObject : testObjects) {
+            copy.add(testObject);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public Object timeCopy_ImmutableIdSet() {
+        return flexSet.freeze();
+    }
+
+    @Benchmark
+    public Object timeCopy_HashMap() {
+        return new HashMap<>(hashMap);
+    }
+
+}
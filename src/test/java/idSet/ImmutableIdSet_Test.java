@@ -0,0 +1,128 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImmutableIdSet_Test {
+
+    @Test
+    public void shouldContainAllElementsOfFrozenFlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<1000; i++) {
+            flexSet.add(new TestObject_0(i * 31));
+        }
+        ImmutableIdSet<TestObject_0> immutableIdSet = flexSet.freeze();
+        assertTrue(immutableIdSet.size() == 1000);
+        for (int i=0; i<1000; i++) {
+            assertTrue(immutableIdSet.get(i * 31) == flexSet.get(i * 31));
+        }
+        assertTrue(!immutableIdSet.containsId(1));
+        assertTrue(new HashSet<>(immutableIdSet).equals(new HashSet<>(flexSet)));
+    }
+
+    @Test
+    public void shouldKeepHashStrategyOfFrozenFlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.builder().hashStrategy(HashStrategy.MURMUR).build();
+        for (int i=0; i<1000; i++) {
+            flexSet.add(new TestObject_0(i * 4096));
+        }
+        ImmutableIdSet<TestObject_0> immutableIdSet = flexSet.freeze();
+        assertTrue(immutableIdSet.hashStrategy == HashStrategy.MURMUR);
+        assertTrue(ImmutableIdSet.copyOf(flexSet).hashStrategy == HashStrategy.MURMUR);
+        assertTrue(ImmutableIdSet.copyOf(immutableIdSet) == immutableIdSet);
+        for (int i=0; i<1000; i++) {
+            assertTrue(immutableIdSet.get(i * 4096) == flexSet.get(i * 4096));
+        }
+        ImmutableIdSet<TestObject_0> copy = ImmutableIdSet.copyOf(immutableIdSet, HashStrategy.FX);
+        assertTrue(copy.hashStrategy == HashStrategy.FX && copy.equals(immutableIdSet));
+    }
+
+    @Test
+    public void shouldBeSizedToElements() {
+        ImmutableIdSet<TestObject_0> immutableIdSet = ImmutableIdSet.of(new TestObject_0(0), new TestObject_0(1), new TestObject_0(2));
+        assertTrue(immutableIdSet.elements.length == 3);
+        assertTrue(immutableIdSet.bucketOffsets.length == 4 + 1);
+    }
+
+    @Test
+    public void shouldNotReflectChangesOfFrozenFlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(0));
+        ImmutableIdSet<TestObject_0> immutableIdSet = flexSet.freeze();
+        flexSet.add(new TestObject_0(1));
+        flexSet.removeId(0);
+        assertTrue(immutableIdSet.size() == 1);
+        assertTrue(immutableIdSet.containsId(0));
+        assertTrue(!immutableIdSet.containsId(1));
+    }
+
+    @Test
+    public void shouldFindElementsWithEqualHashCodes() {
+        ImmutableIdSet<TestObject_6> immutableIdSet = ImmutableIdSet.of(new TestObject_6(0), new TestObject_6(1), new TestObject_6(2));
+        for (int i=0; i<3; i++) {
+            assertTrue(immutableIdSet.containsId(new TestObject_6.Id(i)));
+        }
+        assertTrue(!immutableIdSet.containsId(new TestObject_6.Id(3)));
+    }
+
+    @Test
+    public void shouldKeepBucketsSortedByHashCode() {
+        List<TestObject_0> testObjects = new ArrayList<>();
+        for (int i=100; i>0; i--) {
+            testObjects.add(new TestObject_0(i * 64));
+        }
+        ImmutableIdSet<TestObject_0> immutableIdSet = ImmutableIdSet.copyOf(testObjects);
+        for (int bucket=0; bucket<immutableIdSet.bucketOffsets.length-1; bucket++) {
+            for (int i=immutableIdSet.bucketOffsets[bucket]+1; i<immutableIdSet.bucketOffsets[bucket+1]; i++) {
+                assertTrue(immutableIdSet.hashCodes[i-1] <= immutableIdSet.hashCodes[i]);
+            }
+        }
+        for (int i=1; i<=100; i++) {
+            assertTrue(immutableIdSet.containsId(i * 64));
+        }
+    }
+
+    @Test
+    public void shouldDropDuplicatesOfNonIdSetCollections() {
+        ImmutableIdSet<TestObject_0> immutableIdSet = ImmutableIdSet.copyOf(Arrays.asList(new TestObject_0(0), new TestObject_0(0)));
+        assertTrue(immutableIdSet.size() == 1);
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        ImmutableIdSet<TestObject_0> immutableIdSet = FlexSet.<TestObject_0>instance().freeze();
+        assertTrue(immutableIdSet.isEmpty());
+        assertTrue(!immutableIdSet.containsId(0));
+        assertTrue(!immutableIdSet.iterator().hasNext());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowAddition() {
+        ImmutableIdSet.of(new TestObject_0(0)).add(new TestObject_0(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowRemoval() {
+        ImmutableIdSet.of(new TestObject_0(0)).removeId(0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowClearing() {
+        ImmutableIdSet.of(new TestObject_0(0)).clear();
+    }
+
+    @Test
+    public void shouldBeEqualToCopyOfTheSameElements() {
+        ImmutableIdSet<TestObject_0> immutableIdSet0 = ImmutableIdSet.of(new TestObject_0(0), new TestObject_0(1));
+        ImmutableIdSet<TestObject_0> immutableIdSet1 = ImmutableIdSet.of(new TestObject_0(1), new TestObject_0(0));
+        assertTrue(immutableIdSet0.equals(immutableIdSet1));
+        assertTrue(immutableIdSet0.hashCode() == immutableIdSet1.hashCode());
+    }
+
+}
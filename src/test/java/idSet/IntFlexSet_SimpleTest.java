@@ -0,0 +1,145 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IntFlexSet_SimpleTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldAddElements() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        assertTrue(flexSet.add(new TestObject_8(0)));
+        assertTrue(!flexSet.add(new TestObject_8(0)));
+        assertTrue(flexSet.size() == 1);
+    }
+
+    @Test
+    public void shouldReturnElementByPrimitiveId() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        TestObject_8 added = new TestObject_8(Integer.MAX_VALUE);
+        flexSet.add(added);
+        assertTrue(flexSet.getInt(Integer.MAX_VALUE) == added);
+        assertTrue(flexSet.containsInt(Integer.MAX_VALUE));
+        assertTrue(flexSet.getInt(Integer.MIN_VALUE) == null);
+        assertTrue(!flexSet.containsInt(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void shouldReturnElementByBoxedId() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        TestObject_8 added = new TestObject_8(7);
+        flexSet.add(added);
+        assertTrue(flexSet.get(7) == added);
+        assertTrue(flexSet.containsId(7));
+        assertTrue(flexSet.contains(new TestObject_8(7)));
+        assertTrue(flexSet.get(7L) == null);
+    }
+
+    @Test
+    public void shouldRemoveElementByPrimitiveId() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        flexSet.add(new TestObject_8(-1));
+        assertTrue(flexSet.removeInt(-1).equals(new TestObject_8(-1)));
+        assertTrue(flexSet.removeInt(-1) == null);
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveElementByBoxedIdAndElement() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        flexSet.add(new TestObject_8(1));
+        flexSet.add(new TestObject_8(2));
+        assertTrue(flexSet.removeId(1) != null);
+        assertTrue(flexSet.remove(new TestObject_8(2)));
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldExpandAndShrink() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        int capacity = flexSet.capacity;
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_8(i * 4096));
+        }
+        assertTrue(flexSet.capacity > capacity);
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.containsInt(i * 4096));
+        }
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.removeInt(i * 4096) != null);
+        }
+        assertTrue(flexSet.capacity < 1024);
+    }
+
+    @Test
+    public void shouldBeIterable() {
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        Set<TestObject_8> set = new HashSet<>();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_8(i));
+            set.add(new TestObject_8(i));
+        }
+        Set<TestObject_8> iterated = new HashSet<>();
+        for (TestObject_8 testObject : flexSet) {
+            iterated.add(testObject);
+        }
+        assertTrue(iterated.equals(set));
+    }
+
+    @Test
+    public void shouldOverrideEqualsAndHashCodeMethods() {
+        IntFlexSet<TestObject_8> flexSet0 = IntFlexSet.instance();
+        IntFlexSet<TestObject_8> flexSet1 = IntFlexSet.instance(1024);
+        for (int i=0; i<100; i++) {
+            flexSet0.add(new TestObject_8(i));
+            flexSet1.add(new TestObject_8(99 - i));
+        }
+        assertTrue(flexSet0.equals(flexSet1) && flexSet1.equals(flexSet0));
+        assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForRandomAdditionsAndRemovals() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        Set<Integer> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            int id = generator.nextInt(2048) << 20;
+            if (generator.nextBoolean()) {
+                assertTrue(flexSet.add(new TestObject_8(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeInt(id) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        for (Integer id : set) {
+            assertTrue(flexSet.containsInt(id));
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenContainsCalledWithNotIdentifiableObject() {
+        exception.expect(IllegalArgumentException.class);
+        IntFlexSet.instance().contains(false);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToAddNullElement() {
+        exception.expect(NullPointerException.class);
+        IntFlexSet<TestObject_8> flexSet = IntFlexSet.instance();
+        flexSet.add(null);
+    }
+
+}
@@ -0,0 +1,55 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// groupCommitInterval 0 forces every change to the disk on its own
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class JournaledFlexSet_Benchmark {
+
+    private Path directory;
+    private JournaledFlexSet<TestObject_0> journaledFlexSet;
+    private int id;
+
+    @Param({"0", "1", "10"})
+    private long groupCommitInterval;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        journaledFlexSet = JournaledFlexSet.builder(directory, MappedIdSet_Test.TEST_OBJECT_CODEC)
+                .groupCommitInterval(groupCommitInterval, TimeUnit.MILLISECONDS)
+                .open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journaledFlexSet.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean timeAddAndRemove_JournaledFlexSet() {
+        journaledFlexSet.add(new TestObject_0(id));
+        return journaledFlexSet.removeId(id++) != null;
+    }
+
+}
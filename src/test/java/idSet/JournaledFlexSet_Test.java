@@ -0,0 +1,256 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JournaledFlexSet_Test {
+
+    private static final ElementCodec<TestObject_0> CODEC = MappedIdSet_Test.TEST_OBJECT_CODEC;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRecoverChangesAfterReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Set<Integer> set = new HashSet<>();
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<10000; i++) {
+                int id = generator.nextInt(1000);
+                if (generator.nextInt(3) > 0) {
+                    assertTrue(journaledFlexSet.add(new TestObject_0(id)) == set.add(id));
+                } else {
+                    assertTrue((journaledFlexSet.removeId(id) != null) == set.remove(id));
+                }
+            }
+        }
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == set.size());
+            for (int i=0; i<1000; i++) {
+                assertTrue(journaledFlexSet.containsId(i) == set.contains(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRecoverClear() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<100; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+            journaledFlexSet.clear();
+            journaledFlexSet.add(new TestObject_0(-1));
+        }
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 1 && journaledFlexSet.containsId(-1));
+        }
+    }
+
+    @Test
+    public void shouldRecoverChangesForcedOnEveryChangeWithoutClosing() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        JournaledFlexSet<TestObject_0> crashed = JournaledFlexSet.builder(directory, CODEC).groupCommitInterval(0, TimeUnit.MILLISECONDS).open();
+        for (int i=0; i<100; i++) {
+            crashed.add(new TestObject_0(i));
+        }
+        crashed.removeId(50);
+        crashed.journal.close();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 99);
+            assertTrue(!journaledFlexSet.containsId(50) && journaledFlexSet.containsId(99));
+        }
+    }
+
+    @Test
+    public void shouldCutOffTornTailOfJournal() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<100; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+        }
+        Path journal = directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME);
+        long length = Files.size(journal);
+        Files.write(journal, new byte[]{0, 0, 0, 5, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 100);
+            assertTrue(journaledFlexSet.journalLength == length);
+            journaledFlexSet.add(new TestObject_0(100));
+        }
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 101);
+        }
+    }
+
+    @Test
+    public void shouldIgnoreCorruptedRecordsOfJournal() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<100; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+        }
+        Path journal = directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME);
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 1]++;
+        Files.write(journal, bytes);
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 99);
+            assertTrue(!journaledFlexSet.containsId(99));
+        }
+    }
+
+    @Test
+    public void shouldCompactJournalIntoSnapshot() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.builder(directory, CODEC).compactionThreshold(1024).open()) {
+            for (int i=0; i<10000; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+            for (int i=0; i<5000; i++) {
+                journaledFlexSet.removeId(i);
+            }
+            assertTrue(journaledFlexSet.journalLength <= 1024);
+        }
+        assertTrue(Files.exists(directory.resolve(JournaledFlexSet.SNAPSHOT_FILE_NAME)));
+        assertTrue(Files.size(directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME)) <= 1024);
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 5000);
+            for (int i=0; i<10000; i++) {
+                assertTrue(journaledFlexSet.containsId(i) == (i >= 5000));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotFailChangesWhenCompactionFails() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Path temporarySnapshot = Files.createDirectory(directory.resolve(JournaledFlexSet.SNAPSHOT_FILE_NAME + ".tmp"));
+        JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.builder(directory, CODEC).compactionThreshold(1024).open();
+        for (int i=0; i<1000; i++) {
+            assertTrue(journaledFlexSet.add(new TestObject_0(i)));
+        }
+        assertTrue(journaledFlexSet.journalLength > 1024);
+        assertTrue(!Files.exists(directory.resolve(JournaledFlexSet.SNAPSHOT_FILE_NAME)));
+        Files.delete(temporarySnapshot);
+        journaledFlexSet.close();
+        assertTrue(Files.exists(directory.resolve(JournaledFlexSet.SNAPSHOT_FILE_NAME)));
+        assertTrue(Files.size(directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME)) == 0);
+        try (JournaledFlexSet<TestObject_0> reopened = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(reopened.size() == 1000);
+        }
+    }
+
+    @Test
+    public void shouldRecoverWhenJournalWasNotEmptiedAfterCompaction() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        byte[] journal;
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<100; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+            journaledFlexSet.clear();
+            for (int i=0; i<10; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+                journaledFlexSet.removeId(i);
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+            journaledFlexSet.sync();
+            journal = Files.readAllBytes(directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME));
+            journaledFlexSet.compact();
+        }
+        Files.write(directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME), journal);
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 10);
+            for (int i=0; i<10; i++) {
+                assertTrue(journaledFlexSet.containsId(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldJournalRemovalThroughIterator() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            for (int i=0; i<100; i++) {
+                journaledFlexSet.add(new TestObject_0(i));
+            }
+            assertTrue(journaledFlexSet.removeIf(testObject -> testObject.getId() % 2 == 0));
+        }
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(directory, CODEC)) {
+            assertTrue(journaledFlexSet.size() == 50);
+            for (int i=0; i<100; i++) {
+                assertTrue(journaledFlexSet.containsId(i) == (i % 2 == 1));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCommitGroupInBackground() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        try (JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.builder(directory, CODEC).groupCommitInterval(5, TimeUnit.MILLISECONDS).open()) {
+            journaledFlexSet.add(new TestObject_0(1));
+            Path journal = directory.resolve(JournaledFlexSet.JOURNAL_FILE_NAME);
+            for (int i=0; i<1000 && Files.size(journal) == 0; i++) {
+                Thread.sleep(5);
+            }
+            assertTrue(Files.size(journal) == journaledFlexSet.journalLength);
+        }
+    }
+
+    @Test
+    public void shouldRejectChangesAfterJournalWriteFailed() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.builder(directory, CODEC).groupCommitInterval(1, TimeUnit.HOURS).open();
+        journaledFlexSet.add(new TestObject_0(-1));
+        journaledFlexSet.journal.close();
+        int failedId = -1;
+        for (int i=0; i<100000 && failedId < 0; i++) {
+            try {
+                journaledFlexSet.add(new TestObject_0(i));
+            } catch (UncheckedIOException e) {
+                failedId = i;
+            }
+        }
+        assertTrue(failedId >= 0 && !journaledFlexSet.containsId(failedId));
+        exception.expect(UncheckedIOException.class);
+        journaledFlexSet.add(new TestObject_0(-2));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenGroupCommitIntervalIsNegative() throws IOException {
+        exception.expect(IllegalArgumentException.class);
+        JournaledFlexSet.builder(folder.getRoot().toPath(), CODEC).groupCommitInterval(-1, TimeUnit.MILLISECONDS).open();
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenUsedAfterClose() throws IOException {
+        JournaledFlexSet<TestObject_0> journaledFlexSet = JournaledFlexSet.open(folder.getRoot().toPath(), CODEC);
+        journaledFlexSet.close();
+        journaledFlexSet.close();
+        exception.expect(IllegalStateException.class);
+        journaledFlexSet.add(new TestObject_0(1));
+    }
+
+}
@@ -0,0 +1,145 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongFlexSet_SimpleTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldAddElements() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        assertTrue(flexSet.add(new TestObject_7(0)));
+        assertTrue(!flexSet.add(new TestObject_7(0)));
+        assertTrue(flexSet.size() == 1);
+    }
+
+    @Test
+    public void shouldReturnElementByPrimitiveId() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        TestObject_7 added = new TestObject_7(Long.MAX_VALUE);
+        flexSet.add(added);
+        assertTrue(flexSet.getLong(Long.MAX_VALUE) == added);
+        assertTrue(flexSet.containsLong(Long.MAX_VALUE));
+        assertTrue(flexSet.getLong(Long.MIN_VALUE) == null);
+        assertTrue(!flexSet.containsLong(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void shouldReturnElementByBoxedId() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        TestObject_7 added = new TestObject_7(7);
+        flexSet.add(added);
+        assertTrue(flexSet.get(7L) == added);
+        assertTrue(flexSet.containsId(7L));
+        assertTrue(flexSet.contains(new TestObject_7(7)));
+        assertTrue(flexSet.get(7) == null);
+    }
+
+    @Test
+    public void shouldRemoveElementByPrimitiveId() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        flexSet.add(new TestObject_7(-1));
+        assertTrue(flexSet.removeLong(-1).equals(new TestObject_7(-1)));
+        assertTrue(flexSet.removeLong(-1) == null);
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveElementByBoxedIdAndElement() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        flexSet.add(new TestObject_7(1));
+        flexSet.add(new TestObject_7(2));
+        assertTrue(flexSet.removeId(1L) != null);
+        assertTrue(flexSet.remove(new TestObject_7(2)));
+        assertTrue(flexSet.isEmpty());
+    }
+
+    @Test
+    public void shouldExpandAndShrink() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        int capacity = flexSet.capacity;
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_7(i * 4096L));
+        }
+        assertTrue(flexSet.capacity > capacity);
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.containsLong(i * 4096L));
+        }
+        for (int i=0; i<1024; i++) {
+            assertTrue(flexSet.removeLong(i * 4096L) != null);
+        }
+        assertTrue(flexSet.capacity < 1024);
+    }
+
+    @Test
+    public void shouldBeIterable() {
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        Set<TestObject_7> set = new HashSet<>();
+        for (int i=0; i<100; i++) {
+            flexSet.add(new TestObject_7(i));
+            set.add(new TestObject_7(i));
+        }
+        Set<TestObject_7> iterated = new HashSet<>();
+        for (TestObject_7 testObject : flexSet) {
+            iterated.add(testObject);
+        }
+        assertTrue(iterated.equals(set));
+    }
+
+    @Test
+    public void shouldOverrideEqualsAndHashCodeMethods() {
+        LongFlexSet<TestObject_7> flexSet0 = LongFlexSet.instance();
+        LongFlexSet<TestObject_7> flexSet1 = LongFlexSet.instance(1024);
+        for (int i=0; i<100; i++) {
+            flexSet0.add(new TestObject_7(i));
+            flexSet1.add(new TestObject_7(99 - i));
+        }
+        assertTrue(flexSet0.equals(flexSet1) && flexSet1.equals(flexSet0));
+        assertTrue(flexSet0.hashCode() == flexSet1.hashCode());
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSetForRandomAdditionsAndRemovals() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        Set<Long> set = new HashSet<>();
+        for (int i=0; i<65536; i++) {
+            long id = generator.nextInt(2048) * (1L << 33);
+            if (generator.nextBoolean()) {
+                assertTrue(flexSet.add(new TestObject_7(id)) == set.add(id));
+            } else {
+                assertTrue((flexSet.removeLong(id) != null) == set.remove(id));
+            }
+            assertTrue(flexSet.size() == set.size());
+        }
+        for (Long id : set) {
+            assertTrue(flexSet.containsLong(id));
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenContainsCalledWithNotIdentifiableObject() {
+        exception.expect(IllegalArgumentException.class);
+        LongFlexSet.instance().contains(false);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenTryingToAddNullElement() {
+        exception.expect(NullPointerException.class);
+        LongFlexSet<TestObject_7> flexSet = LongFlexSet.instance();
+        flexSet.add(null);
+    }
+
+}
@@ -0,0 +1,86 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+// cold start from a snapshot compared with building the set element by element
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class MappedIdSet_Benchmark {
+
+    private TestObject_0[] testObjects;
+    private Path path;
+    private FlexSet<TestObject_0> flexSet_get;
+    private MappedIdSet<TestObject_0> mappedIdSet_get;
+
+    @Param({"65536", "1048576"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() throws IOException {
+        testObjects = new TestObject_0[numberOfElements];
+        flexSet_get = FlexSet.instance();
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects[i] = new TestObject_0(i);
+            flexSet_get.add(testObjects[i]);
+        }
+        path = Files.createTempFile("snapshot", null);
+        flexSet_get.writeSnapshot(path, MappedIdSet_Test.TEST_OBJECT_CODEC);
+        mappedIdSet_get = MappedIdSet.open(path, MappedIdSet_Test.TEST_OBJECT_CODEC);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mappedIdSet_get.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public int timeOpen_MappedIdSet() throws IOException {
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, MappedIdSet_Test.TEST_OBJECT_CODEC)) {
+            return mappedIdSet.containsId(0) ? 1 : 0;
+        }
+    }
+
+    @Benchmark
+    public Object timeBuild_FlexSet() {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (TestObject_0 testObject : testObjects) {
+            flexSet.add(testObject);
+        }
+        return flexSet;
+    }
+
+    @Benchmark
+    public int timeGet_MappedIdSet() {
+        int found = 0;
+        for (TestObject_0 testObject : testObjects) {
+            if (mappedIdSet_get.get(testObject.getId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int timeGet_FlexSet() {
+        int found = 0;
+        for (TestObject_0 testObject : testObjects) {
+            if (flexSet_get.get(testObject.getId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,228 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MappedIdSet_Test {
+
+    static final ElementCodec<TestObject_0> TEST_OBJECT_CODEC = new ElementCodec<TestObject_0>() {
+        @Override
+        public void write(TestObject_0 testObject, DataOutput out) throws IOException {
+            out.writeInt(testObject.getId());
+        }
+
+        @Override
+        public TestObject_0 read(DataInput in) throws IOException {
+            return new TestObject_0(in.readInt());
+        }
+    };
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<100000; i++) {
+            flexSet.add(new TestObject_0(i * 4096));
+        }
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        flexSet.writeSnapshot(path, TEST_OBJECT_CODEC);
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            assertTrue(mappedIdSet.size() == 100000);
+            for (int i=0; i<100000; i++) {
+                assertTrue(mappedIdSet.get(i * 4096).equals(new TestObject_0(i * 4096)));
+                assertTrue(!mappedIdSet.containsId(i * 4096 + 1));
+            }
+            assertTrue(new HashSet<>(mappedIdSet).equals(new HashSet<>(flexSet)));
+            assertTrue(mappedIdSet.containsAll(flexSet));
+        }
+        assertTrue(!Files.exists(folder.getRoot().toPath().resolve("snapshot.tmp")));
+    }
+
+    @Test
+    public void shouldReadEmptySnapshot() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet.<TestObject_0>instance().writeSnapshot(path, TEST_OBJECT_CODEC);
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            assertTrue(mappedIdSet.isEmpty());
+            assertTrue(!mappedIdSet.iterator().hasNext());
+            assertTrue(mappedIdSet.get(0) == null);
+        }
+    }
+
+    @Test
+    public void shouldFindCollidingIds() throws IOException {
+        FlexSet<IdWrapper<String, Integer>> flexSet = FlexSet.instance();
+        String[] ids = {"Aa", "BB", "AaAa", "AaBB", "BBAa", "BBBB"};
+        for (int i=0; i<ids.length; i++) {
+            flexSet.add(new IdWrapper<>(ids[i], i));
+        }
+        ElementCodec<IdWrapper<String, Integer>> codec = new ElementCodec<IdWrapper<String, Integer>>() {
+            @Override
+            public void write(IdWrapper<String, Integer> idWrapper, DataOutput out) throws IOException {
+                out.writeUTF(idWrapper.getId());
+                out.writeInt(idWrapper.getValue());
+            }
+
+            @Override
+            public IdWrapper<String, Integer> read(DataInput in) throws IOException {
+                return new IdWrapper<>(in.readUTF(), in.readInt());
+            }
+        };
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        flexSet.writeSnapshot(path, codec);
+        try (MappedIdSet<IdWrapper<String, Integer>> mappedIdSet = MappedIdSet.open(path, codec)) {
+            for (int i=0; i<ids.length; i++) {
+                assertTrue(mappedIdSet.get(ids[i]).getValue() == i);
+            }
+            assertTrue(mappedIdSet.get("AaAaAa") == null);
+        }
+    }
+
+    @Test
+    public void shouldReplaceExistingSnapshot() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(1));
+        flexSet.writeSnapshot(path, TEST_OBJECT_CODEC);
+        flexSet.add(new TestObject_0(2));
+        flexSet.writeSnapshot(path, TEST_OBJECT_CODEC);
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            assertTrue(mappedIdSet.size() == 2 && mappedIdSet.containsId(2));
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenFileIsNotSnapshot() throws IOException {
+        Path path = folder.newFile("not_snapshot").toPath();
+        Files.write(path, new byte[64]);
+        exception.expect(IOException.class);
+        MappedIdSet.open(path, TEST_OBJECT_CODEC);
+    }
+
+    @Test
+    public void shouldLeaveNoTemporaryFileBehind() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        for (int i=0; i<10; i++) {
+            flexSet.add(new TestObject_0(i));
+            flexSet.writeSnapshot(path, TEST_OBJECT_CODEC);
+        }
+        assertTrue(Arrays.equals(folder.getRoot().list(), new String[]{"snapshot"}));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenCapacityIsNotPowerOfTwo() throws IOException {
+        Path path = singleElementSnapshot();
+        overwriteInt(path, 12, 3);
+        exception.expect(IOException.class);
+        MappedIdSet.open(path, TEST_OBJECT_CODEC);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSizeExceedsCapacity() throws IOException {
+        Path path = singleElementSnapshot();
+        overwriteInt(path, 8, 1 << 29);
+        exception.expect(IOException.class);
+        MappedIdSet.open(path, TEST_OBJECT_CODEC);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenOffsetIsOutOfBounds() throws IOException {
+        Path path = singleElementSnapshot();
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            assertTrue(mappedIdSet.containsId(7));
+        }
+        int tableOffset = readInt(path, 16);
+        for (int slot=0; slot<2; slot++) {
+            if (readInt(path, tableOffset + slot * 8 + 4) != 0) {
+                overwriteInt(path, tableOffset + slot * 8 + 4, tableOffset);
+            }
+        }
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            exception.expect(UncheckedIOException.class);
+            mappedIdSet.get(7);
+        }
+    }
+
+    @Test
+    public void shouldStopProbingWhenTableHasNoEmptySlot() throws IOException {
+        Path path = singleElementSnapshot();
+        int tableOffset = readInt(path, 16);
+        for (int slot=0; slot<2; slot++) {
+            overwriteInt(path, tableOffset + slot * 8, 7);
+            overwriteInt(path, tableOffset + slot * 8 + 4, 20);
+        }
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            assertTrue(mappedIdSet.get(8) == null);
+            assertTrue(mappedIdSet.get(7) != null);
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenModified() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet.<TestObject_0>instance().writeSnapshot(path, TEST_OBJECT_CODEC);
+        try (MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC)) {
+            exception.expect(UnsupportedOperationException.class);
+            mappedIdSet.add(new TestObject_0(1));
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenUsedAfterClose() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet.<TestObject_0>instance().writeSnapshot(path, TEST_OBJECT_CODEC);
+        MappedIdSet<TestObject_0> mappedIdSet = MappedIdSet.open(path, TEST_OBJECT_CODEC);
+        mappedIdSet.close();
+        exception.expect(IllegalStateException.class);
+        mappedIdSet.get(1);
+    }
+
+    private Path singleElementSnapshot() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("snapshot");
+        FlexSet<TestObject_0> flexSet = FlexSet.instance();
+        flexSet.add(new TestObject_0(7));
+        flexSet.writeSnapshot(path, TEST_OBJECT_CODEC);
+        return path;
+    }
+
+    private static int readInt(Path path, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            return buffer.getInt(0);
+        }
+    }
+
+    private static void overwriteInt(Path path, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            buffer.putInt(0, value);
+            channel.write(buffer, position);
+        }
+    }
+
+}
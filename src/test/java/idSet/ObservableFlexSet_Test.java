@@ -0,0 +1,227 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ObservableFlexSet_Test {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldNotifyListenersOfChanges() {
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        List<String> changes = new ArrayList<>();
+        observableFlexSet.addListener(recordingListener(changes));
+        observableFlexSet.add(new TestObject_0(1));
+        observableFlexSet.add(new TestObject_0(1));
+        observableFlexSet.add(new TestObject_0(2));
+        observableFlexSet.removeId(1);
+        observableFlexSet.removeId(1);
+        observableFlexSet.clear();
+        observableFlexSet.clear();
+        assertTrue(changes.equals(Arrays.asList("add 1", "add 2", "remove 1", "clear")));
+    }
+
+    @Test
+    public void shouldNotifyListenersOfBulkRemoval() {
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        for (int i=0; i<100; i++) {
+            observableFlexSet.add(new TestObject_0(i));
+        }
+        List<String> changes = new ArrayList<>();
+        observableFlexSet.addListener(recordingListener(changes));
+        observableFlexSet.removeIf(testObject -> testObject.getId() < 10);
+        observableFlexSet.retainAllIds(Arrays.asList(10, 11, 12));
+        observableFlexSet.remove(new TestObject_0(12));
+        Iterator<TestObject_0> iterator = observableFlexSet.iterator();
+        iterator.next();
+        iterator.remove();
+        assertTrue(observableFlexSet.size() == 1);
+        assertTrue(changes.size() == 99);
+        for (String change : changes) {
+            assertTrue(change.startsWith("remove "));
+        }
+    }
+
+    @Test
+    public void shouldStopNotifyingRemovedListener() {
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        List<String> changes = new ArrayList<>();
+        ObservableFlexSet.Listener<TestObject_0> listener = recordingListener(changes);
+        observableFlexSet.addListener(listener);
+        observableFlexSet.add(new TestObject_0(1));
+        assertTrue(observableFlexSet.removeListener(listener));
+        observableFlexSet.add(new TestObject_0(2));
+        assertTrue(changes.equals(Collections.singletonList("add 1")));
+    }
+
+    @Test
+    public void shouldDeliverChangesInBatches() {
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        List<List<ObservableFlexSet.Change<TestObject_0>>> batches = new ArrayList<>();
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        observableFlexSet.addListener(ObservableFlexSet.batching(batches::add, tasks::add, 4));
+        for (int i=0; i<10; i++) {
+            observableFlexSet.add(new TestObject_0(i));
+        }
+        observableFlexSet.clear();
+        assertTrue(tasks.size() == 1 && batches.isEmpty());
+        tasks.poll().run();
+        assertTrue(batches.size() == 3);
+        assertTrue(batches.get(0).size() == 4 && batches.get(1).size() == 4 && batches.get(2).size() == 3);
+        assertTrue(batches.get(0).get(0).getType() == ObservableFlexSet.Change.Type.ADD);
+        assertTrue(batches.get(0).get(0).getElement().getId() == 0);
+        assertTrue(batches.get(2).get(2).getType() == ObservableFlexSet.Change.Type.CLEAR);
+        observableFlexSet.add(new TestObject_0(-1));
+        assertTrue(tasks.size() == 1);
+    }
+
+    @Test
+    public void shouldDeliverChangesInOrderOnExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<ObservableFlexSet.Change<TestObject_0>> delivered = Collections.synchronizedList(new ArrayList<>());
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        observableFlexSet.addListener(ObservableFlexSet.batching(delivered::addAll, executor, 64));
+        for (int i=0; i<10000; i++) {
+            observableFlexSet.add(new TestObject_0(i));
+            if (i % 3 == 0) {
+                observableFlexSet.removeId(i);
+            }
+        }
+        for (int i=0; i<1000 && delivered.size() < 13334; i++) {
+            Thread.sleep(5);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(delivered.size() == 13334);
+        int index = 0;
+        for (int i=0; i<10000; i++) {
+            assertTrue(delivered.get(index++).equals(changeOf(ObservableFlexSet.Change.Type.ADD, i)));
+            if (i % 3 == 0) {
+                assertTrue(delivered.get(index++).equals(changeOf(ObservableFlexSet.Change.Type.REMOVE, i)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepDeliveringAfterBatchListenerFailed() {
+        List<Integer> delivered = new ArrayList<>();
+        ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+        observableFlexSet.addListener(ObservableFlexSet.<TestObject_0>batching(batch -> {
+            if (batch.get(0).getElement().getId() == 0) {
+                throw new IllegalStateException();
+            }
+            delivered.add(batch.get(0).getElement().getId());
+        }, Runnable::run, 1));
+        try {
+            observableFlexSet.add(new TestObject_0(0));
+        } catch (IllegalStateException e) {
+            // thrown by the batch listener
+        }
+        observableFlexSet.add(new TestObject_0(1));
+        assertTrue(delivered.equals(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void shouldNotifyRemainingListenersWhenListenerFailed() {
+        List<Throwable> reported = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        try {
+            ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+            List<String> changes = new ArrayList<>();
+            observableFlexSet.addListener(new ObservableFlexSet.Listener<TestObject_0>() {
+                @Override
+                public void onAdd(TestObject_0 testObject) {
+                    throw new IllegalStateException();
+                }
+            });
+            observableFlexSet.addListener(recordingListener(changes));
+            assertTrue(observableFlexSet.add(new TestObject_0(1)));
+            assertTrue(observableFlexSet.containsId(1));
+            assertTrue(changes.equals(Collections.singletonList("add 1")));
+            assertTrue(reported.size() == 1 && reported.get(0) instanceof IllegalStateException);
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    @Test
+    public void shouldKeepChangesPendingWhenExecutorRejectsDelivery() {
+        List<Throwable> reported = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        try {
+            boolean[] rejecting = {true};
+            Deque<Runnable> tasks = new ArrayDeque<>();
+            List<List<ObservableFlexSet.Change<TestObject_0>>> batches = new ArrayList<>();
+            ObservableFlexSet<TestObject_0> observableFlexSet = ObservableFlexSet.instance();
+            observableFlexSet.addListener(ObservableFlexSet.batching(batches::add, task -> {
+                if (rejecting[0]) {
+                    throw new RejectedExecutionException();
+                }
+                tasks.add(task);
+            }, 16));
+            assertTrue(observableFlexSet.add(new TestObject_0(0)));
+            assertTrue(reported.size() == 1 && reported.get(0) instanceof RejectedExecutionException);
+            rejecting[0] = false;
+            assertTrue(observableFlexSet.add(new TestObject_0(1)));
+            tasks.poll().run();
+            assertTrue(batches.size() == 1 && batches.get(0).size() == 2);
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenMaxBatchSizeIsNotPositive() {
+        exception.expect(IllegalArgumentException.class);
+        ObservableFlexSet.batching(batch -> { }, Runnable::run, 0);
+    }
+
+    private static ObservableFlexSet.Change<TestObject_0> changeOf(ObservableFlexSet.Change.Type type, int id) {
+        List<ObservableFlexSet.Change<TestObject_0>> changes = new ArrayList<>();
+        ObservableFlexSet.Listener<TestObject_0> listener = ObservableFlexSet.batching(changes::addAll, Runnable::run, 1);
+        if (type == ObservableFlexSet.Change.Type.ADD) {
+            listener.onAdd(new TestObject_0(id));
+        } else {
+            listener.onRemove(new TestObject_0(id));
+        }
+        return changes.get(0);
+    }
+
+    private static ObservableFlexSet.Listener<TestObject_0> recordingListener(List<String> changes) {
+        return new ObservableFlexSet.Listener<TestObject_0>() {
+            @Override
+            public void onAdd(TestObject_0 testObject) {
+                changes.add("add " + testObject.getId());
+            }
+
+            @Override
+            public void onRemove(TestObject_0 testObject) {
+                changes.add("remove " + testObject.getId());
+            }
+
+            @Override
+            public void onClear() {
+                changes.add("clear");
+            }
+        };
+    }
+
+}
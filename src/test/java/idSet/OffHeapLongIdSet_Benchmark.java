@@ -0,0 +1,83 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// run with -prof gc to compare allocation rates and gc time with idSet.LongFlexSet and idSet.FlexSet
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 1, time = 1000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = MILLISECONDS)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class OffHeapLongIdSet_Benchmark {
+
+    private TestObject_7[] testObjects;
+    private OffHeapLongIdSet<TestObject_7> offHeapLongIdSet_get;
+    private LongFlexSet<TestObject_7> longFlexSet_get;
+
+    @Param({"65536", "1048576", "8388608"})
+    private int numberOfElements;
+
+    @Setup
+    public void setUp() {
+        testObjects = new TestObject_7[numberOfElements];
+        for (int i = 0; i < numberOfElements; i++) {
+            testObjects[i] = new TestObject_7(i * 4096L);
+        }
+        offHeapLongIdSet_get = OffHeapLongIdSet.instance();
+        longFlexSet_get = LongFlexSet.instance();
+        for (TestObject_7 testObject : testObjects) {
+            offHeapLongIdSet_get.add(testObject);
+            longFlexSet_get.add(testObject);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        offHeapLongIdSet_get.close();
+    }
+
+    @Benchmark
+    public int timeAdd_OffHeapLongIdSet() {
+        try (OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance()) {
+            for (TestObject_7 testObject : testObjects) {
+                idSet.add(testObject);
+            }
+            return idSet.size();
+        }
+    }
+
+    @Benchmark
+    public int timeAdd_LongFlexSet() {
+        LongFlexSet<TestObject_7> idSet = LongFlexSet.instance();
+        for (TestObject_7 testObject : testObjects) {
+            idSet.add(testObject);
+        }
+        return idSet.size();
+    }
+
+    @Benchmark
+    public int timeGet_OffHeapLongIdSet() {
+        int found = 0;
+        for (TestObject_7 testObject : testObjects) {
+            if (offHeapLongIdSet_get.getLong(testObject.getLongId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int timeGet_LongFlexSet() {
+        int found = 0;
+        for (TestObject_7 testObject : testObjects) {
+            if (longFlexSet_get.getLong(testObject.getLongId()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,165 @@
+package idSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OffHeapLongIdSet_Test {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowExceptionWhenInitialCapacityIsNotPositive() {
+        exception.expect(IllegalArgumentException.class);
+        OffHeapLongIdSet.instance(0);
+    }
+
+    @Test
+    public void shouldAddElements() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        assertTrue(idSet.add(new TestObject_7(0)));
+        assertTrue(!idSet.add(new TestObject_7(0)));
+        assertTrue(idSet.size() == 1);
+        assertTrue(idSet.index.isDirect());
+    }
+
+    @Test
+    public void shouldReturnElementByPrimitiveAndBoxedId() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        TestObject_7 added = new TestObject_7(Long.MAX_VALUE);
+        idSet.add(added);
+        assertTrue(idSet.getLong(Long.MAX_VALUE) == added);
+        assertTrue(idSet.get(Long.MAX_VALUE) == added);
+        assertTrue(idSet.containsLong(Long.MAX_VALUE));
+        assertTrue(idSet.contains(new TestObject_7(Long.MAX_VALUE)));
+        assertTrue(idSet.getLong(Long.MIN_VALUE) == null);
+        assertTrue(idSet.get((int) 7) == null);
+    }
+
+    @Test
+    public void shouldAddAndRemoveZeroId() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        assertTrue(!idSet.containsLong(0));
+        idSet.add(new TestObject_7(0));
+        assertTrue(idSet.containsLong(0));
+        assertTrue(idSet.removeLong(0).equals(new TestObject_7(0)));
+        assertTrue(idSet.removeLong(0) == null);
+        assertTrue(idSet.isEmpty());
+    }
+
+    @Test
+    public void shouldExpandAndShrink() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        for (int i=0; i<100000; i++) {
+            idSet.add(new TestObject_7(i * 4096L));
+        }
+        assertTrue(idSet.size() == 100000);
+        assertTrue(idSet.size() <= idSet.expansionThreshold);
+        int capacity = idSet.capacity;
+        for (int i=0; i<99990; i++) {
+            assertTrue(idSet.removeLong(i * 4096L) != null);
+        }
+        assertTrue(idSet.capacity < capacity);
+        for (int i=99990; i<100000; i++) {
+            assertTrue(idSet.containsLong(i * 4096L));
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashSet() {
+        ThreadLocalRandom generator = ThreadLocalRandom.current();
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        Set<Long> set = new HashSet<>();
+        for (int i=0; i<200000; i++) {
+            long id = generator.nextLong(10000) - 5000;
+            if (generator.nextInt(3) > 0) {
+                assertTrue(idSet.add(new TestObject_7(id)) == set.add(id));
+            } else {
+                assertTrue((idSet.removeLong(id) != null) == set.remove(id));
+            }
+            assertTrue(idSet.size() == set.size());
+        }
+        for (long id=-5000; id<5000; id++) {
+            assertTrue(idSet.containsLong(id) == set.contains(id));
+            assertTrue(!idSet.containsLong(id) || idSet.getLong(id).getLongId() == id);
+        }
+    }
+
+    @Test
+    public void shouldRemoveThroughIterator() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        for (int i=0; i<1000; i++) {
+            idSet.add(new TestObject_7(i));
+        }
+        Set<Long> visited = new HashSet<>();
+        for (Iterator<TestObject_7> iterator = idSet.iterator(); iterator.hasNext(); ) {
+            TestObject_7 testObject = iterator.next();
+            assertTrue(visited.add(testObject.getLongId()));
+            if (testObject.getLongId() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertTrue(visited.size() == 1000);
+        assertTrue(idSet.size() == 500);
+        for (int i=0; i<1000; i++) {
+            assertTrue(idSet.containsLong(i) == (i % 2 == 1));
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRemovedTwiceThroughIterator() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.fromArray(new TestObject_7(1), new TestObject_7(2));
+        Iterator<TestObject_7> iterator = idSet.iterator();
+        iterator.next();
+        iterator.remove();
+        exception.expect(IllegalStateException.class);
+        iterator.remove();
+    }
+
+    @Test
+    public void shouldClear() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        for (int i=0; i<1000; i++) {
+            idSet.add(new TestObject_7(i));
+        }
+        idSet.clear();
+        assertTrue(idSet.isEmpty());
+        assertTrue(!idSet.iterator().hasNext());
+        for (int i=0; i<1000; i++) {
+            assertTrue(!idSet.containsLong(i));
+        }
+        assertTrue(idSet.add(new TestObject_7(1)) && idSet.containsLong(1));
+    }
+
+    @Test
+    public void shouldBeEqualRegardlessOfInsertionOrder() {
+        OffHeapLongIdSet<TestObject_7> idSet0 = OffHeapLongIdSet.instance();
+        OffHeapLongIdSet<TestObject_7> idSet1 = OffHeapLongIdSet.instance();
+        for (int i=0; i<1000; i++) {
+            idSet0.add(new TestObject_7(i));
+            idSet1.add(new TestObject_7(999 - i));
+        }
+        assertTrue(idSet0.equals(idSet1) && idSet0.hashCode() == idSet1.hashCode());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenUsedAfterClose() {
+        OffHeapLongIdSet<TestObject_7> idSet = OffHeapLongIdSet.instance();
+        idSet.add(new TestObject_7(1));
+        idSet.close();
+        idSet.close();
+        assertTrue(idSet.isEmpty());
+        exception.expect(IllegalStateException.class);
+        idSet.containsLong(1);
+    }
+
+}
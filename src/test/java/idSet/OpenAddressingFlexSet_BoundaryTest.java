@@ -0,0 +1,30 @@
+package idSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static junit.framework.TestCase.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OpenAddressingFlexSet_BoundaryTest {
+
+    @Test
+    public void shouldAdjustInitialCapacitySoThatItsAnIntEqualPowerOfTwoAndLeavesFreeSlots() {
+        assertTrue(OpenAddressingFlexSet.instance(48).capacity == 64);
+        assertTrue(OpenAddressingFlexSet.instance(49).capacity == 128);
+        assertTrue(OpenAddressingFlexSet.instance(24).capacity == 32);
+        assertTrue(OpenAddressingFlexSet.instance(1).capacity == 4);
+    }
+
+    @Test
+    public void shouldNotExceedExpansionThreshold() {
+        OpenAddressingFlexSet<TestObject_0> flexSet = OpenAddressingFlexSet.instance(1);
+        for (int i=0; i<1024; i++) {
+            flexSet.add(new TestObject_0(i));
+            assertTrue(flexSet.size() <= flexSet.expansionThreshold);
+            assertTrue(flexSet.size() < flexSet.capacity);
+        }
+    }
+
+}
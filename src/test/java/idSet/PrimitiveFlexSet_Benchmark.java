@@ -0,0 +1,116 @@
+package idSet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+// kept apart from idSet.FlexSet_Benchmark, so that the primitive sets are not run once for every testObjectType
+@Warmup(iterations = 1, time = 200, timeUnit = MILLISECONDS)
+@Measurement(iterations = 100, time = 20, timeUnit = MILLISECONDS)
+@Fork(value = 10)
+@State(Scope.Thread)
+public class PrimitiveFlexSet_Benchmark {
+
+    private long[] longIds;
+    private TestObject_7[] longTestObjects;
+    private int[] intIds;
+    private TestObject_8[] intTestObjects;
+
+    private LongFlexSet<TestObject_7> longFlexSet_add;
+    private LongFlexSet<TestObject_7> longFlexSet_contains;
+    private LongFlexSet<TestObject_7> longFlexSet_removeId;
+    private IntFlexSet<TestObject_8> intFlexSet_add;
+    private IntFlexSet<TestObject_8> intFlexSet_contains;
+    private IntFlexSet<TestObject_8> intFlexSet_removeId;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64", "128", "256", "512", "1024", "2048", "4096", "8192", "16384", "32768", "65536", "131072", "262144", "524288"})
+    private int numberOfElements;
+
+    @Param({"0", "1", "2", "3"})
+    private int function;
+
+    @Setup
+    public void setUp() throws Exception {
+        longIds = new long[numberOfElements];
+        longTestObjects = new TestObject_7[numberOfElements];
+        intIds = new int[numberOfElements];
+        intTestObjects = new TestObject_8[numberOfElements];
+        longFlexSet_add = LongFlexSet.instance();
+        longFlexSet_contains = LongFlexSet.instance();
+        longFlexSet_removeId = LongFlexSet.instance();
+        intFlexSet_add = IntFlexSet.instance();
+        intFlexSet_contains = IntFlexSet.instance();
+        intFlexSet_removeId = IntFlexSet.instance();
+        for (int i = 0; i < numberOfElements; i++) {
+            int j;
+            switch (function) {
+                case 0:
+                    j = i;
+                    break;
+                case 1:
+                    j = i*i;
+                    break;
+                case 2:
+                    j = ((i%2)*2-1)*i/2;
+                    break;
+                case 3:
+                    j = i*4096;
+                    break;
+                default:
+                    throw new Exception();
+            }
+            longIds[i] = j;
+            longTestObjects[i] = new TestObject_7(j);
+            longFlexSet_contains.add(longTestObjects[i]);
+            longFlexSet_removeId.add(longTestObjects[i]);
+            intIds[i] = j;
+            intTestObjects[i] = new TestObject_8(j);
+            intFlexSet_contains.add(intTestObjects[i]);
+            intFlexSet_removeId.add(intTestObjects[i]);
+        }
+    }
+
+    @Benchmark
+    public void timeAdd_LongFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(longFlexSet_add.add(longTestObjects[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeAdd_IntFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(intFlexSet_add.add(intTestObjects[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeContainsKey_LongFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(longFlexSet_contains.containsLong(longIds[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeContainsKey_IntFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(intFlexSet_contains.containsInt(intIds[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeRemoveId_LongFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(longFlexSet_removeId.removeLong(longIds[i]));
+        }
+    }
+
+    @Benchmark
+    public void timeRemoveId_IntFlexSet(Blackhole bh) {
+        for (int i = 0; i < numberOfElements; i++) {
+            bh.consume(intFlexSet_removeId.removeInt(intIds[i]));
+        }
+    }
+
+}
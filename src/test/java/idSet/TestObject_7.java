@@ -0,0 +1,27 @@
+package idSet;
+
+public class TestObject_7 implements LongIdentifiable {
+    private long id;
+
+    TestObject_7(long id) {
+        this.id = id;
+    }
+
+    @Override
+    public long getLongId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TestObject_7 that = (TestObject_7) o;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+}
@@ -0,0 +1,27 @@
+package idSet;
+
+public class TestObject_8 implements IntIdentifiable {
+    private int id;
+
+    TestObject_8(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public int getIntId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TestObject_8 that = (TestObject_8) o;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+}